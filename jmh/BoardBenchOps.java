@@ -0,0 +1,124 @@
+import bench.BoardOps;
+
+import java.util.Random;
+
+// Board's package-private update phases for bench.BoardBenchmark, cycling over a set of seeded boards
+public class BoardBenchOps implements BoardOps {
+    private static final int BOARDS = 64;
+    private static final long BASE_SEED = 42L;
+
+    private final Board[] boards = new Board[BOARDS];
+    private final Random policy = new Random(BASE_SEED);
+    private int next;
+    private Board board; // The board a prepare step set up for the next timed call
+
+    public BoardBenchOps() {
+        for (int i = 0; i < BOARDS; i++) {
+            boards[i] = new Board(BASE_SEED + i);
+        }
+        board = boards[0];
+    }
+
+    private Board nextBoard() {
+        next = (next + 1) % BOARDS;
+        return boards[next];
+    }
+
+    // Starts a valid swap on the board, reseeding it if the board has no move left
+    private void startValidSwap(Board b) {
+        b.resolveFully();
+        int[] move = BatchSimulator.findMove(b, policy);
+        while (move == null) {
+            b.initGrid();
+            move = BatchSimulator.findMove(b, policy);
+        }
+        b.trySwap(move[0], move[1], move[2], move[3]);
+    }
+
+    @Override
+    public void settleAll() {
+        for (Board b : boards) b.resolveFully();
+    }
+
+    @Override
+    public void startSwapOnAll() {
+        for (Board b : boards) startValidSwap(b);
+    }
+
+    // Leaves the next board on the tick right after gravity and refill moved pieces off their cells
+    @Override
+    public void prepareCascade() {
+        board = nextBoard();
+        startValidSwap(board);
+        while (true) {
+            board.findMatches();
+            board.animateMovement();
+            boolean settled = !board.isMoving();
+            if (board.processMatches() > 0 && settled) break;
+        }
+    }
+
+    // Leaves the next board on the tick a valid swap finishes animating, before it scores and refills
+    @Override
+    public void prepareRefill() {
+        board = nextBoard();
+        startValidSwap(board);
+        while (true) {
+            board.findMatches();
+            board.animateMovement();
+            if (!board.isMoving()) break;
+            board.processMatches();
+        }
+    }
+
+    // Keeps one board in play: a valid swap is started whenever it settles
+    @Override
+    public void preparePlay() {
+        board = boards[0];
+        if (board.isIdle()) {
+            int[] move = BatchSimulator.findMove(board, policy);
+            if (move == null) {
+                board.initGrid();
+            } else {
+                board.trySwap(move[0], move[1], move[2], move[3]);
+            }
+        }
+    }
+
+    @Override
+    public int initGrid() {
+        Board b = nextBoard();
+        b.initGrid();
+        return b.getKind(1, 1);
+    }
+
+    @Override
+    public int findMatches() {
+        Board b = nextBoard();
+        b.findMatches();
+        return b.getKind(1, 1);
+    }
+
+    @Override
+    public boolean animateIdle() {
+        Board b = nextBoard();
+        b.animateMovement();
+        return b.isMoving();
+    }
+
+    @Override
+    public boolean animate() {
+        board.animateMovement();
+        return board.isMoving();
+    }
+
+    @Override
+    public int processMatches() {
+        return board.processMatches();
+    }
+
+    @Override
+    public int update() {
+        return board.update();
+    }
+}
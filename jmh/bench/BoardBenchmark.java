@@ -0,0 +1,143 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Board hot paths: match finding, animation, scoring with refill and whole ticks
+// Run with: gradle jmh, or gradle jmh -Pinclude=findMatches for a subset
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    // Freshly dealt boards
+    @State(Scope.Thread)
+    public static class Fresh {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+        }
+    }
+
+    // Boards with a valid swap in flight, so findMatches() scans only the swapped rows and columns
+    @State(Scope.Thread)
+    public static class Swapping {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+            ops.startSwapOnAll();
+        }
+    }
+
+    // Settled boards, so findMatches() scans everything and finds nothing
+    @State(Scope.Thread)
+    public static class Settled {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+            ops.settleAll();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cascade {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            ops.prepareCascade();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Refill {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            ops.prepareRefill();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Playing {
+        BoardOps ops;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            ops = BoardOps.create();
+        }
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            ops.preparePlay();
+        }
+    }
+
+    @Benchmark
+    public int initGrid(Fresh s) {
+        return s.ops.initGrid();
+    }
+
+    @Benchmark
+    public int findMatchesSwap(Swapping s) {
+        return s.ops.findMatches();
+    }
+
+    @Benchmark
+    public int findMatchesFullScan(Settled s) {
+        return s.ops.findMatches();
+    }
+
+    @Benchmark
+    public boolean animateMovementIdle(Fresh s) {
+        return s.ops.animateIdle();
+    }
+
+    // One animation tick right after gravity and refill moved pieces off their cells
+    @Benchmark
+    public boolean animateMovementCascade(Cascade s) {
+        return s.ops.animate();
+    }
+
+    // Scoring plus gravity and refill, on the tick a valid swap finishes animating
+    @Benchmark
+    public int processMatchesRefill(Refill s) {
+        return s.ops.processMatches();
+    }
+
+    // Full tick while playing: a valid swap is started whenever the board settles
+    @Benchmark
+    public int update(Playing s) {
+        return s.ops.update();
+    }
+}
@@ -0,0 +1,28 @@
+package bench;
+
+// The Board calls the benchmarks time. JMH rejects benchmarks in the unnamed package, where Board lives,
+// so BoardBenchOps implements this there and the benchmarks load it by name
+public interface BoardOps {
+    // Untimed preparation
+    void settleAll();
+    void startSwapOnAll();
+    void prepareCascade();
+    void prepareRefill();
+    void preparePlay();
+
+    // Timed operations, each returns something so JMH can sink it
+    int initGrid();
+    int findMatches();
+    boolean animateIdle();
+    boolean animate();
+    int processMatches();
+    int update();
+
+    static BoardOps create() {
+        try {
+            return (BoardOps) Class.forName("BoardBenchOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BoardBenchOps is missing from the jmh classpath", e);
+        }
+    }
+}
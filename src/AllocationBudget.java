@@ -0,0 +1,79 @@
+import java.awt.Canvas;
+import java.awt.Component;
+import java.awt.event.MouseEvent;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Checks that a steady-state game tick allocates nothing: the MouseHandler/InputQueue hand-off, Board.update()
+// and GameTimer.update(), driven like Game.update() with clicks on valid swaps
+// Usage: java AllocationBudget [ticks]; exits with status 1 if any tick allocated
+public class AllocationBudget {
+    private static final int WARMUP_TICKS = 200_000;
+    private static final int DEFAULT_TICKS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final MouseEvent[][] clicks;
+    private final InputQueue commands = new InputQueue(16);
+    private final MouseHandler input = new MouseHandler(commands);
+    private final Random policy = new Random(1);
+    private final int[] move = new int[4];
+    private final MouseEvent[] pending = new MouseEvent[2];
+    private int pendingCount;
+    private long seed;
+    private Simulation sim = new Simulation(seed);
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TICKS;
+        AllocationBudget budget = new AllocationBudget();
+        budget.run(WARMUP_TICKS);
+        long bytes = budget.run(ticks);
+        System.out.printf("%d ticks, %d bytes allocated, %.2f bytes/tick%n", ticks, bytes, (double) bytes / ticks);
+        if (bytes > 0) {
+            System.exit(1);
+        }
+    }
+
+    private AllocationBudget() {
+        // Pre-built press events for every cell, as the EDT would deliver them
+        int size = Board.DEFAULT_SIZE;
+        Component source = new Canvas();
+        clicks = new MouseEvent[size + 1][size + 1];
+        for (int row = 1; row <= size; row++) {
+            for (int col = 1; col <= size; col++) {
+                clicks[row][col] = new MouseEvent(source, MouseEvent.MOUSE_PRESSED, 0, 0,
+                        Board.screenX(col), Board.screenY(row), 1, false, MouseEvent.BUTTON1);
+            }
+        }
+    }
+
+    // Runs ticks and returns the bytes allocated inside them, setup between ticks is not counted
+    private long run(int ticks) {
+        long bytes = 0;
+        for (int t = 0; t < ticks; t++) {
+            if (sim.isGameOver()) {
+                sim = new Simulation(++seed);
+                pendingCount = 0;
+            }
+            Board board = sim.getBoard();
+            if (pendingCount == 0 && board.isIdle() && board.getMoveCount() > 0) {
+                board.getMove(policy.nextInt(board.getMoveCount()), move);
+                pending[1] = clicks[move[0]][move[1]];
+                pending[0] = clicks[move[2]][move[3]];
+                pendingCount = 2;
+            }
+
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            if (pendingCount > 0) {
+                input.mousePressed(pending[--pendingCount]);
+            }
+            while (commands.poll()) {
+                board.handleClick(commands.x(), commands.y(), commands.button(), commands.timestamp());
+            }
+            sim.tick();
+            bytes += THREADS.getCurrentThreadAllocatedBytes() - before;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,109 @@
+// Time-based tweens that move pieces to their cells: swaps, swap-backs and falls
+// Only pieces in motion are on the active list, and whether any of them is still moving is kept as a flag,
+// so neither stepping nor asking looks at the rest of the board. Tween state lives on the Piece, nothing is allocated
+public class Animator {
+    // Pieces travel 312.5px/s, the 5px per 16ms step the board always moved at
+    private static final long NANOS_PER_PIXEL = 3_200_000L;
+
+    public enum Easing {
+        EASE_IN_OUT, // Swaps: start and stop gently
+        EASE_IN; // Falls: pick up speed like gravity
+
+        double apply(double t) {
+            switch (this) {
+                case EASE_IN_OUT:
+                    return t * t * (3 - 2 * t);
+                default:
+                    return t * t;
+            }
+        }
+    }
+
+    private final Piece[] active;
+    private int count;
+    private boolean moving;
+
+    public Animator(int capacity) {
+        active = new Piece[capacity];
+    }
+
+    // Starts moving p from where it is drawn now to (toX, toY), taking longer the further it has to go
+    // A piece already on the list is retargeted from its current position
+    void moveTo(Piece p, int toX, int toY, Easing easing) {
+        p.fromX = p.x;
+        p.fromY = p.y;
+        p.toX = toX;
+        p.toY = toY;
+        p.easing = easing;
+        p.elapsed = 0;
+        p.duration = Math.max(Math.abs(toX - p.x), Math.abs(toY - p.y)) * NANOS_PER_PIXEL;
+        if (!p.animating) {
+            p.animating = true;
+            active[count++] = p;
+        }
+        moving = true;
+    }
+
+    // Puts back a tween from a snapshot, elapsed nanos into moving p from (fromX, fromY) to (toX, toY)
+    // p stays drawn where it is; a tween already past its duration settles on the next step as it would have
+    void resume(Piece p, int fromX, int fromY, int toX, int toY, long elapsed, Easing easing) {
+        p.fromX = fromX;
+        p.fromY = fromY;
+        p.toX = toX;
+        p.toY = toY;
+        p.easing = easing;
+        p.elapsed = elapsed;
+        p.duration = Math.max(Math.abs(toX - fromX), Math.abs(toY - fromY)) * NANOS_PER_PIXEL;
+        p.animating = true;
+        active[count++] = p;
+        moving |= elapsed <= p.duration;
+    }
+
+    // Advances every tween by nanos. A tween is done once its time is past the duration; the piece then
+    // stays on the list one more step so its previous position catches up for render interpolation
+    void step(long nanos) {
+        moving = false;
+        for (int k = 0; k < count; ) {
+            Piece p = active[k];
+            p.prevX = p.x;
+            p.prevY = p.y;
+            if (p.elapsed > p.duration) {
+                p.animating = false;
+                active[k] = active[--count];
+                active[count] = null;
+                continue;
+            }
+            p.elapsed += nanos;
+            if (p.elapsed > p.duration) {
+                p.x = p.toX;
+                p.y = p.toY;
+            } else {
+                double e = p.easing.apply((double) p.elapsed / p.duration);
+                p.x = p.fromX + (int) Math.round((p.toX - p.fromX) * e);
+                p.y = p.fromY + (int) Math.round((p.toY - p.fromY) * e);
+                moving = true;
+            }
+            k++;
+        }
+    }
+
+    // Drops every tween, for a board that replaced its pieces
+    void clear() {
+        for (int k = 0; k < count; k++) {
+            active[k].animating = false;
+            active[k] = null;
+        }
+        count = 0;
+        moving = false;
+    }
+
+    // True while any tween has time left
+    public boolean isMoving() {
+        return moving;
+    }
+
+    // Pieces on the active list, including ones settling after their last step
+    public int getActiveCount() {
+        return count;
+    }
+}
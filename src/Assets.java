@@ -1,50 +1,129 @@
 import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-// Manages game assets such as images, ensuring proper loading and access.
-public class Assets {
+// Process-wide, immutable game images, loaded once at startup.
+// The PNGs are decoded in parallel on loader threads and converted to the display's native format there,
+// so neither the EDT nor a game restart ever touches the disk
+public final class Assets {
     // Constants for game dimensions
     public static final int WIDTH = 900;
     public static final int HEIGHT = 563;
+    // Gem tiles are 49px wide in gems.png and drawn at 50px on the board
+    private static final int GEM_TILE = 49;
+    public static final int GEM_SIZE = 50;
 
-    // Image assets for the game
-    private BufferedImage background;
-    private BufferedImage gems;
-    private BufferedImage cursor;
-    private BufferedImage view;
+    private static CompletableFuture<Assets> loading;
 
-    // Constructor initializes the view buffer
-    public Assets() {
-        this.view = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    // Display-compatible images, drawn 1:1
+    private final BufferedImage background;
+    private final BufferedImage[] gemSprites;
+    private final BufferedImage cursorSprite;
+
+    private Assets(BufferedImage background, BufferedImage gems, BufferedImage cursor) {
+        GraphicsConfiguration config = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        this.background = createImage(config, WIDTH, HEIGHT, Transparency.OPAQUE);
+        Graphics2D g2 = this.background.createGraphics();
+        try {
+            g2.drawImage(background, 0, 0, WIDTH, HEIGHT, null);
+        } finally {
+            g2.dispose();
+        }
+        this.gemSprites = sliceGems(config, gems);
+        this.cursorSprite = createImage(config, cursor.getWidth(), cursor.getHeight(), Transparency.TRANSLUCENT);
+        g2 = cursorSprite.createGraphics();
+        try {
+            g2.drawImage(cursor, 0, 0, null);
+        } finally {
+            g2.dispose();
+        }
     }
 
-    // Loads all required image assets from the resource directory
-    public void load() {
+    // Starts decoding in the background; Main calls this first so loading overlaps window creation
+    public static synchronized void preload() {
+        if (loading != null) return;
+        ExecutorService decoders = Executors.newFixedThreadPool(3, r -> {
+            Thread thread = new Thread(r, "AssetLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<BufferedImage> background = CompletableFuture.supplyAsync(() -> read("background.png"), decoders);
+        CompletableFuture<BufferedImage> gems = CompletableFuture.supplyAsync(() -> read("gems.png"), decoders);
+        CompletableFuture<BufferedImage> cursor = CompletableFuture.supplyAsync(() -> read("cursor.png"), decoders);
+        loading = CompletableFuture.allOf(background, gems, cursor)
+                .thenApplyAsync(ignored -> new Assets(background.join(), gems.join(), cursor.join()), decoders)
+                .whenComplete((assets, error) -> {
+                    decoders.shutdown();
+                    if (error == null) StartupTiming.mark("assets");
+                });
+    }
+
+    // The loaded assets, waiting for preload() to finish if needed
+    public static Assets get() {
+        preload();
         try {
-            background = ImageIO.read(getClass().getResource("/res/background.png"));
-            gems = ImageIO.read(getClass().getResource("/res/gems.png"));
-            cursor = ImageIO.read(getClass().getResource("/res/cursor.png"));
+            return loading.join();
+        } catch (CompletionException e) {
+            System.err.println("Failed to load assets: " + e.getCause().getMessage());
+            throw new RuntimeException("Asset loading failed, cannot start game.", e.getCause());
+        }
+    }
+
+    private static BufferedImage read(String name) {
+        try {
+            return ImageIO.read(Assets.class.getResource("/res/" + name));
         } catch (IOException e) {
-            System.err.println("Failed to load assets: " + e.getMessage());
-            throw new RuntimeException("Asset loading failed, cannot start game.", e);
+            throw new UncheckedIOException(name, e);
         }
     }
 
+    // Slices each gem out of the sheet once, scaled to its on-board size
+    private static BufferedImage[] sliceGems(GraphicsConfiguration config, BufferedImage gems) {
+        BufferedImage[] sprites = new BufferedImage[gems.getWidth() / GEM_TILE];
+        for (int kind = 0; kind < sprites.length; kind++) {
+            BufferedImage sprite = createImage(config, GEM_SIZE, GEM_SIZE, Transparency.TRANSLUCENT);
+            Graphics2D g2 = sprite.createGraphics();
+            try {
+                g2.drawImage(gems, 0, 0, GEM_SIZE, GEM_SIZE,
+                        kind * GEM_TILE, 0, (kind + 1) * GEM_TILE, GEM_TILE, null);
+            } finally {
+                g2.dispose();
+            }
+            sprites[kind] = sprite;
+        }
+        return sprites;
+    }
+
+    // An image in the screen's pixel format, or plain RGB/ARGB without a display
+    private static BufferedImage createImage(GraphicsConfiguration config, int width, int height, int transparency) {
+        if (config == null) {
+            return new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        return config.createCompatibleImage(width, height, transparency);
+    }
+
     // Getter methods for accessing assets
     public BufferedImage getBackground() {
         return background;
     }
 
-    public BufferedImage getGems() {
-        return gems;
-    }
-
-    public BufferedImage getCursor() {
-        return cursor;
+    // Kinds past the sprite sheet, on boards with more gem types, reuse its sprites
+    public BufferedImage getGemSprite(int kind) {
+        return gemSprites[kind % gemSprites.length];
     }
 
-    public BufferedImage getView() {
-        return view;
+    public BufferedImage getCursorSprite() {
+        return cursorSprite;
     }
-}
\ No newline at end of file
+}
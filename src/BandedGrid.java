@@ -0,0 +1,244 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Match detection and move search for board sizes BitBoard and MoveIndex do not cover
+// Gem kinds are mirrored into one flat array with a border of empty cells, so scans never chase Piece pointers
+// and never touch a piece at all. Boards of PARALLEL_CELLS cells or more split their rows and columns into
+// bands of BAND_WIDTH that run on the common fork-join pool; smaller ones run as one band on the caller's thread
+public class BandedGrid {
+    public static final int PARALLEL_CELLS = 128 * 128;
+    static final int BAND_WIDTH = 32;
+    private static final int MIN_RUN = 3;
+
+    // Work on the rows or columns from..to, 1-based and inclusive, of band number band
+    interface Band {
+        void run(int band, int from, int to);
+    }
+
+    // Splits a range of bands in halves until one is left, so every band keeps the same rows whatever the core count
+    private final class BandTask extends RecursiveAction {
+        private final Band body;
+        private final int lo, hi;
+
+        BandTask(Band body, int lo, int hi) {
+            this.body = body;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                body.run(lo, lo * BAND_WIDTH + 1, Math.min((lo + 1) * BAND_WIDTH, size));
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new BandTask(body, lo, mid), new BandTask(body, mid, hi));
+            }
+        }
+    }
+
+    private final int size;
+    private final int stride; // Cell (row, col) is kinds[row * stride + col]
+    private final int bands;
+    private final int[] kinds;
+    // Runs each band found, packed by run(), replaced by the next findRuns()
+    private final long[][] bandRuns;
+    private final int[] bandRunCounts;
+    // Valid swaps anchored in each band of columns, horizontal and vertical, recounted only for bands a changed
+    // cell can affect; a swap's validity depends on the columns from two left of it to three right
+    private final int[] bandRowMoves;
+    private final int[] bandColumnMoves;
+    private final boolean[] stale;
+    private boolean anyStale = true;
+    private int moveCount;
+    private boolean runs; // Set by any band, read once they are all joined
+
+    public BandedGrid(int size) {
+        this.size = size;
+        this.stride = size + 2;
+        this.bands = size * size >= PARALLEL_CELLS ? (size + BAND_WIDTH - 1) / BAND_WIDTH : 1;
+        this.kinds = new int[stride * stride];
+        Arrays.fill(kinds, -1);
+        // Runs of three in every row and then every column of a band
+        this.bandRuns = new long[bands][2 * (bands == 1 ? size : BAND_WIDTH) * size / MIN_RUN + 1];
+        this.bandRunCounts = new int[bands];
+        this.bandRowMoves = new int[bands];
+        this.bandColumnMoves = new int[bands];
+        this.stale = new boolean[bands];
+        Arrays.fill(stale, true);
+    }
+
+    public int getBandCount() {
+        return bands;
+    }
+
+    // Runs body over every band of rows or columns, on the fork-join pool when there is more than one
+    void forBands(Band body) {
+        if (bands == 1) {
+            body.run(0, 1, size);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BandTask(body, 0, bands));
+        }
+    }
+
+    // Records a cell's gem kind; the moves of the bands it can affect are recounted on the next query
+    // Safe from band threads, which only ever set the same flags to true
+    void set(int row, int col, int kind) {
+        kinds[row * stride + col] = kind;
+        int last = bandOf(Math.min(col + 2, size));
+        for (int b = bandOf(Math.max(col - 3, 1)); b <= last; b++) {
+            stale[b] = true;
+        }
+        anyStale = true;
+    }
+
+    private int bandOf(int col) {
+        return bands == 1 ? 0 : (col - 1) / BAND_WIDTH;
+    }
+
+    // Finds the runs of three or more, returns whether there are any. After a swap only rows r1, r2
+    // and columns c1, c2 are scanned
+    boolean findRuns(boolean swap, int r1, int c1, int r2, int c2) {
+        Arrays.fill(bandRunCounts, 0);
+        runs = false;
+        if (swap) {
+            findRowRuns(0, r1);
+            if (r2 != r1) findRowRuns(0, r2);
+            findColumnRuns(0, c1);
+            if (c2 != c1) findColumnRuns(0, c2);
+        } else {
+            forBands((band, from, to) -> {
+                for (int i = from; i <= to; i++) {
+                    findRowRuns(band, i);
+                }
+            });
+            forBands((band, from, to) -> {
+                for (int j = from; j <= to; j++) {
+                    findColumnRuns(band, j);
+                }
+            });
+        }
+        return runs;
+    }
+
+    // Hands the last findRuns() runs to groups, band by band so the order never depends on the core count
+    void addRunsTo(MatchGroups groups) {
+        for (int b = 0; b < bands; b++) {
+            for (int k = 0; k < bandRunCounts[b]; k++) {
+                long run = bandRuns[b][k];
+                groups.addRun((int) (run >>> 32), (int) (run >>> 16) & 0xFFFF, (int) run >>> 1 & 0x7FFF, (run & 1) != 0);
+            }
+        }
+    }
+
+    private void findRowRuns(int band, int i) {
+        int base = i * stride;
+        for (int j = 1; j <= size; ) {
+            int kind = kinds[base + j];
+            int end = j;
+            while (end < size && kinds[base + end + 1] == kind) end++;
+            if (end - j + 1 >= MIN_RUN && kind >= 0) {
+                addRun(band, i, j, end - j + 1, true);
+            }
+            j = end + 1;
+        }
+    }
+
+    private void findColumnRuns(int band, int j) {
+        for (int i = 1; i <= size; ) {
+            int kind = kinds[i * stride + j];
+            int end = i;
+            while (end < size && kinds[(end + 1) * stride + j] == kind) end++;
+            if (end - i + 1 >= MIN_RUN && kind >= 0) {
+                addRun(band, i, j, end - i + 1, false);
+            }
+            i = end + 1;
+        }
+    }
+
+    // Packs a run into one long: row, column, then length and direction in the low 16 bits
+    private void addRun(int band, int row, int col, int length, boolean horizontal) {
+        runs = true;
+        bandRuns[band][bandRunCounts[band]++] = (long) row << 32 | col << 16 | length << 1 | (horizontal ? 1 : 0);
+    }
+
+    // Number of swaps that would create a match, recounting only the bands a changed cell touched
+    int countMoves() {
+        if (anyStale) {
+            forBands((band, from, to) -> {
+                if (!stale[band]) return;
+                int h = 0, v = 0;
+                for (int i = 1; i <= size; i++) {
+                    for (int cell = i * stride + from, last = i * stride + to; cell <= last; cell++) {
+                        if (check(cell, cell + 1)) h++;
+                        if (check(cell, cell + stride)) v++;
+                    }
+                }
+                bandRowMoves[band] = h;
+                bandColumnMoves[band] = v;
+                stale[band] = false;
+            });
+            int total = 0;
+            for (int b = 0; b < bands; b++) total += bandRowMoves[b] + bandColumnMoves[b];
+            moveCount = total;
+            anyStale = false;
+        }
+        return moveCount;
+    }
+
+    // The n-th valid swap as {r1, c1, r2, c2}, band by band; within a band horizontal moves come first, in
+    // row-major order, so a board of one band orders them like MoveIndex
+    int[] getMove(int n, int[] out) {
+        countMoves();
+        int left = n;
+        for (int b = 0; b < bands; b++) {
+            if (left >= bandRowMoves[b] + bandColumnMoves[b]) {
+                left -= bandRowMoves[b] + bandColumnMoves[b];
+                continue;
+            }
+            int from = b * BAND_WIDTH + 1, to = bands == 1 ? size : Math.min(from + BAND_WIDTH - 1, size);
+            boolean horizontal = left < bandRowMoves[b];
+            if (!horizontal) left -= bandRowMoves[b];
+            int step = horizontal ? 1 : stride;
+            for (int i = 1; i <= size; i++) {
+                for (int j = from; j <= to; j++) {
+                    int cell = i * stride + j;
+                    if (check(cell, cell + step) && left-- == 0) {
+                        out[0] = i;
+                        out[1] = j;
+                        out[2] = horizontal ? i : i + 1;
+                        out[3] = horizontal ? j + 1 : j;
+                        return out;
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("No valid move at index " + n);
+    }
+
+    // Whether swapping two adjacent playable cells puts either gem into a run of three
+    boolean isValid(int r1, int c1, int r2, int c2) {
+        return check(r1 * stride + c1, r2 * stride + c2);
+    }
+
+    // Cells past the playable area hold -1, so a swap with the border is never valid
+    private boolean check(int a, int b) {
+        int ka = kinds[a], kb = kinds[b];
+        if (ka == kb || ka < 0 || kb < 0) return false;
+        return formsRun(b, ka, a) || formsRun(a, kb, b);
+    }
+
+    // Whether a gem of this kind moved into the cell lines up with two more, not counting the cell it left
+    // The empty border ends every run, so no bounds checks are needed
+    private boolean formsRun(int cell, int kind, int from) {
+        int h = 1;
+        for (int i = cell - 1; i != from && kinds[i] == kind; i--) h++;
+        for (int i = cell + 1; i != from && kinds[i] == kind; i++) h++;
+        if (h >= MIN_RUN) return true;
+        int v = 1;
+        for (int i = cell - stride; i != from && kinds[i] == kind; i -= stride) v++;
+        for (int i = cell + stride; i != from && kinds[i] == kind; i += stride) v++;
+        return v >= MIN_RUN;
+    }
+}
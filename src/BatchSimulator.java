@@ -0,0 +1,93 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Plays many seeded headless games across all cores and reports throughput and score distribution
+// Usage: java BatchSimulator [games] [threads] [seed]
+public class BatchSimulator {
+    private static final int DEFAULT_GAMES = 100_000;
+    private static final long MAX_TICKS = 60L * 60 * 60; // One hour of game time per game
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+        LongAdder totalTicks = new LongAdder();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        int[] scores;
+        try {
+            scores = pool.submit(() -> IntStream.range(0, games)
+                    .parallel()
+                    .map(i -> {
+                        Simulation sim = play(seed + i);
+                        totalTicks.add(sim.getTicks());
+                        return sim.getScore();
+                    })
+                    .toArray()).get();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        report(scores, threads, seconds, totalTicks.sum());
+    }
+
+    // Plays one game to the end, always taking a random swap that creates a match
+    public static Simulation play(long seed) {
+        return play(new Simulation(seed), new Random(~seed));
+    }
+
+    static Simulation play(Simulation sim, Random policy) {
+        Board board = sim.getBoard();
+        while (!sim.isGameOver() && sim.getTicks() < MAX_TICKS) {
+            if (board.isIdle()) {
+                int[] move = findMove(board, policy);
+                if (move != null) {
+                    board.trySwap(move[0], move[1], move[2], move[3]);
+                }
+            }
+            sim.tick();
+        }
+        return sim;
+    }
+
+    // Picks a random valid swap as {r1, c1, r2, c2}, or null on a dead board
+    static int[] findMove(Board board, Random policy) {
+        int count = board.getMoveCount();
+        return count == 0 ? null : board.getMove(policy.nextInt(count));
+    }
+
+    private static void report(int[] scores, int threads, double seconds, long ticks) {
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (int s : sorted) sum += s;
+        int games = sorted.length;
+
+        System.out.printf("Games: %d on %d threads in %.2fs%n", games, threads, seconds);
+        System.out.printf("Throughput: %.0f games/s, %.0f ticks/s%n", games / seconds, ticks / seconds);
+        if (games == 0) return;
+        System.out.printf("Score: min %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n",
+                sorted[0], (double) sum / games, percentile(sorted, 0.50),
+                percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[games - 1]);
+        System.out.printf("Mean game length: %.1fs%n", ticks * Simulation.TICK_SECONDS / games);
+
+        int min = sorted[0];
+        int width = Math.max(1, (sorted[games - 1] - min) / HISTOGRAM_BUCKETS + 1);
+        int[] buckets = new int[HISTOGRAM_BUCKETS];
+        for (int s : sorted) buckets[Math.min((s - min) / width, HISTOGRAM_BUCKETS - 1)]++;
+        for (int b = 0; b < HISTOGRAM_BUCKETS; b++) {
+            System.out.printf("  %6d - %6d: %d%n", min + b * width, min + (b + 1) * width - 1, buckets[b]);
+        }
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
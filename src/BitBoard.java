@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+// Bitboard view of the playfield: one 64-bit mask per gem kind, cell (row, col) at bit (row-1)*8 + (col-1)
+public class BitBoard {
+    public static final int SIZE = 8;
+    private static final int MIN_RUN = 3;
+    private static final long FIRST_COL = 0x0101010101010101L;
+    private static final long FIRST_ROW = 0xFFL;
+
+    // Cells strictly below the main diagonal (row > col)
+    public static final long BELOW_DIAGONAL;
+
+    // Valid run start cells for a run of length n, indexed by n
+    private static final long[] ROW_STARTS = new long[SIZE + 2];
+    private static final long[] COL_STARTS = new long[SIZE + 2];
+
+    static {
+        long below = 0L;
+        for (int row = 1; row <= SIZE; row++) {
+            for (int col = 1; col < row; col++) {
+                below |= 1L << bit(row, col);
+            }
+        }
+        BELOW_DIAGONAL = below;
+
+        for (int n = 1; n <= SIZE; n++) {
+            ROW_STARTS[n] = ((1L << (SIZE - n + 1)) - 1) * FIRST_COL;
+            COL_STARTS[n] = n == 1 ? -1L : (1L << ((SIZE - n + 1) * SIZE)) - 1;
+        }
+    }
+
+    private final long[] kinds;
+    // Cells covered by a run of exactly n gems, indexed by n
+    private final long[] horizontal = new long[SIZE + 1];
+    private final long[] vertical = new long[SIZE + 1];
+    private long horizontalAll;
+    private long verticalAll;
+
+    public BitBoard(int gemTypes) {
+        this.kinds = new long[gemTypes];
+    }
+
+    public static int bit(int row, int col) {
+        return (row - 1) * SIZE + (col - 1);
+    }
+
+    public static long rowMask(int row) {
+        return FIRST_ROW << ((row - 1) * SIZE);
+    }
+
+    public static long colMask(int col) {
+        return FIRST_COL << (col - 1);
+    }
+
+    public void clear() {
+        Arrays.fill(kinds, 0L);
+    }
+
+    // Places a gem kind on a cell, a negative kind leaves the cell empty
+    public void set(int row, int col, int kind) {
+        long cell = 1L << bit(row, col);
+        for (int k = 0; k < kinds.length; k++) {
+            kinds[k] &= ~cell;
+        }
+        if (kind >= 0) {
+            kinds[kind] |= cell;
+        }
+    }
+
+    // Recomputes the horizontal and vertical run masks for every gem kind
+    public void findRuns() {
+        Arrays.fill(horizontal, 0L);
+        Arrays.fill(vertical, 0L);
+        for (long m : kinds) {
+            // Left neighbour of a cell, without wrapping in from the previous row
+            findRuns(m, 1, (m << 1) & ~FIRST_COL, ROW_STARTS, horizontal);
+            findRuns(m, SIZE, m << SIZE, COL_STARTS, vertical);
+        }
+        horizontalAll = 0L;
+        verticalAll = 0L;
+        for (int n = MIN_RUN; n <= SIZE; n++) {
+            horizontalAll |= horizontal[n];
+            verticalAll |= vertical[n];
+        }
+    }
+
+    // Finds maximal runs of one kind along a direction (step 1 = rows, step SIZE = columns)
+    private static void findRuns(long m, int step, long previous, long[] starts, long[] out) {
+        // Cells starting a run of at least n gems that does not extend backwards
+        long atLeast = m & ~previous & (m >>> step) & (m >>> (2 * step)) & starts[MIN_RUN];
+        for (int n = MIN_RUN; n <= SIZE && atLeast != 0; n++) {
+            long longer = n < SIZE ? atLeast & (m >>> (n * step)) & starts[n + 1] : 0L;
+            long exact = atLeast & ~longer;
+            for (int k = 0; k < n; k++) {
+                out[n] |= exact << (k * step);
+            }
+            atLeast = longer;
+        }
+    }
+
+    // Cells covered by a horizontal run of exactly n gems
+    public long getHorizontal(int n) {
+        return horizontal[n];
+    }
+
+    // Cells covered by a vertical run of exactly n gems
+    public long getVertical(int n) {
+        return vertical[n];
+    }
+
+    public long getHorizontalAll() {
+        return horizontalAll;
+    }
+
+    public long getVerticalAll() {
+        return verticalAll;
+    }
+}
@@ -1,54 +1,210 @@
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 // Manages the game board, including gem grid, swaps, matches, and animations
 public class Board {
-    private static final int SIZE = 8;
+    public static final int DEFAULT_SIZE = 8;
+    public static final int DEFAULT_GEM_TYPES = 7;
+    // Limits for the mega board stress mode; only the default 8x8 board fits on screen
+    public static final int MIN_SIZE = 4;
+    public static final int MAX_SIZE = 1024;
+    public static final int MIN_GEM_TYPES = 3;
+    public static final int MAX_GEM_TYPES = 64;
     private static final int TILE_SIZE = 54;
     private static final int OFFSET_X = 65;
     private static final int OFFSET_Y = 60;
-    private static final int GEM_TYPES = 7;
+    // One update() is one fixed step of game time, as Game and Simulation run it
+    private static final long TICK_NANOS = 16_000_000L;
     private static final int INVALID_KIND = -1;
+    private static final int MAX_SHUFFLES = 100;
+    // Screen area a piece can touch: the gem plus the cursor drawn 2px left and 4px below it
+    private static final int DAMAGE_LEFT = 2;
+    private static final int DAMAGE_WIDTH = 52;
+    private static final int DAMAGE_HEIGHT = 56;
 
+    // Gravity scratch for one band of columns: its output, turned into tweens by the next animateMovement(),
+    // the pieces it clears and the random source refilling them. The 8x8 game has a single band
+    private static final class Gravity {
+        final FallPlan falls;
+        final Piece[] cleared;
+        SplitMix rand;
+
+        Gravity(int columns, int size) {
+            falls = new FallPlan(columns * size);
+            cleared = new Piece[size];
+        }
+    }
+
+    private final int size;
+    private final int gemTypes;
     private final Piece[][] grid;
-    private Assets assets;
+    // The 8x8 board keeps bitboards and an incremental move index; any other size scans the grid instead
+    private final BitBoard bits;
+    private final MoveIndex moves;
+    private final BandedGrid banded;
+    // This pass's match groups and the pieces they stamped, reused by findMatches() every tick
+    private final MatchGroups groups;
+    private final Piece[] matched;
+    private int matchedCount;
+    private final Gravity[] gravity;
+    private boolean fallsPending;
+    private final Animator animator;
     private int click = 0;
     private int x0, y0, x, y;
     private boolean isSwap = false;
-    private boolean isMoving;
-    private Random rand;
-
-    // Constructor initializes the grid and assets
-    public Board(Assets assets) {
-        this.assets = assets;
-        this.grid = new Piece[SIZE + 2][SIZE + 2];
-        this.rand = new Random();
+    private int[] hint;
+    private double renderAlpha = 1.0;
+    private long inputStamp;
+    private int cascadeDepth; // Rounds of matches cleared since the board was last settled
+    private FrameProfiler profiler = FrameProfiler.DISABLED;
+    private long ticks; // update() calls so far, the clock replays are stamped with
+    private Replay replay;
+    private long seed;
+    private final SplitMix rand;
+    private boolean recordEvents = true; // Off on what-if copies, see loadPosition()
+
+    // Constructor initializes the grid with a freshly drawn seed, see getSeed()
+    public Board() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    // Seeded board, the same seed and swaps at the same ticks always replay the same game
+    public Board(long seed) {
+        this(DEFAULT_SIZE, DEFAULT_GEM_TYPES, seed);
+    }
+
+    // A size x size board with gemTypes kinds of gem. Boards of BandedGrid.PARALLEL_CELLS cells or more
+    // find matches, count moves and run gravity in bands on the fork-join pool
+    public Board(int size, int gemTypes, long seed) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be " + MIN_SIZE + " to " + MAX_SIZE + ": " + size);
+        }
+        if (gemTypes < MIN_GEM_TYPES || gemTypes > MAX_GEM_TYPES) {
+            throw new IllegalArgumentException("Gem types must be " + MIN_GEM_TYPES + " to " + MAX_GEM_TYPES + ": " + gemTypes);
+        }
+        this.size = size;
+        this.gemTypes = gemTypes;
+        this.grid = new Piece[size + 2][size + 2];
+        if (size == BitBoard.SIZE) {
+            this.bits = new BitBoard(gemTypes);
+            this.moves = new MoveIndex();
+            this.banded = null;
+        } else {
+            this.bits = null;
+            this.moves = null;
+            this.banded = new BandedGrid(size);
+        }
+        this.groups = new MatchGroups(size);
+        this.matched = new Piece[size * size];
+        int bands = banded == null ? 1 : banded.getBandCount();
+        this.gravity = new Gravity[bands];
+        for (int b = 0; b < bands; b++) {
+            gravity[b] = new Gravity(bands == 1 ? size : BandedGrid.BAND_WIDTH, size);
+        }
+        this.animator = new Animator(size * size);
+        this.seed = seed;
+        this.rand = new SplitMix(seed);
+        gravity[0].rand = rand;
         initGrid();
     }
 
     // Initializes the grid with pieces, setting borders to invalid
-    private void initGrid() {
-        for (int i = 0; i < SIZE + 2; i++) {
-            for (int j = 0; j < SIZE + 2; j++) {
-                grid[i][j] = new Piece();
+    void initGrid() {
+        clearMotion();
+        for (int i = 0; i < size + 2; i++) {
+            for (int j = 0; j < size + 2; j++) {
+                grid[i][j] = new Piece(gemTypes);
             }
         }
-
-        // Initialize playable area with random gems, avoiding initial matches
-        for (int i = 1; i <= SIZE; i++) {
-            for (int j = 1; j <= SIZE; j++) {
-                int gemType;
-                do {
-                    gemType = rand.nextInt(GEM_TYPES);
-                } while (CreateInitialMatch(i, j, gemType));
-                grid[i][j].setKind(gemType);
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
                 grid[i][j].setRow(i);
                 grid[i][j].setCol(j);
                 grid[i][j].setX(j * TILE_SIZE);
                 grid[i][j].setY(i * TILE_SIZE);
+                grid[i][j].prevX = grid[i][j].x;
+                grid[i][j].prevY = grid[i][j].y;
+            }
+        }
+        fillWithoutMatches();
+    }
+
+    // Fills the playable area with random gems, avoiding initial matches and dead boards
+    private void fillWithoutMatches() {
+        do {
+            for (int i = 1; i <= size; i++) {
+                for (int j = 1; j <= size; j++) {
+                    grid[i][j].setKind(INVALID_KIND);
+                }
+            }
+            for (int i = 1; i <= size; i++) {
+                for (int j = 1; j <= size; j++) {
+                    int gemType;
+                    do {
+                        gemType = rand.nextInt(gemTypes);
+                    } while (CreateInitialMatch(i, j, gemType));
+                    grid[i][j].setKind(gemType);
+                    setCell(i, j);
+                }
+            }
+        } while (moveCount() == 0);
+    }
+
+    // Shuffles the gems on a dead board until there is no match and at least one valid swap
+    private void reshuffle() {
+        for (int attempt = 0; attempt < MAX_SHUFFLES; attempt++) {
+            for (int n = size * size - 1; n > 0; n--) {
+                int m = rand.nextInt(n + 1);
+                Piece a = grid[n / size + 1][n % size + 1];
+                Piece b = grid[m / size + 1][m % size + 1];
+                int kind = a.getKind();
+                a.setKind(b.getKind());
+                b.setKind(kind);
+            }
+            for (int i = 1; i <= size; i++) {
+                for (int j = 1; j <= size; j++) {
+                    setCell(i, j);
+                }
             }
+            if (!hasRuns() && moveCount() > 0) {
+                break;
+            }
+            if (attempt == MAX_SHUFFLES - 1) {
+                fillWithoutMatches();
+            }
+        }
+        hint = null;
+    }
+
+    // Copies a cell's gem kind into the bitboard and the move index
+    private void setCell(int row, int col) {
+        int kind = grid[row][col].getKind();
+        if (banded != null) {
+            banded.set(row, col, kind);
+            return;
         }
+        bits.set(row, col, kind);
+        moves.set(row, col, kind);
+    }
+
+    // Whether the board holds a run of three or more anywhere
+    private boolean hasRuns() {
+        if (banded != null) {
+            return banded.findRuns(false, 0, 0, 0, 0);
+        }
+        bits.findRuns();
+        return (bits.getHorizontalAll() | bits.getVerticalAll()) != 0;
+    }
+
+    private int moveCount() {
+        return banded != null ? banded.countMoves() : moves.count();
+    }
+
+    private boolean isValidMove(int r1, int c1, int r2, int c2) {
+        return banded != null ? banded.isValid(r1, c1, r2, c2) : moves.isValid(r1, c1, r2, c2);
     }
 
     // Check if placing a gem would create an initial match
@@ -74,34 +230,71 @@ public class Board {
         return horizontalCount >= 3 || verticalCount >= 3;
     }
 
-    // Handles mouse input for selecting and swapping pieces
-    public void handleMouseInput(MouseEvent mouse) {
-        int posX = mouse.getX() - OFFSET_X;
-        int posY = mouse.getY() - OFFSET_Y;
+    // Handles a mouse press at screen coordinates for selecting and swapping pieces
+    // timestamp is the System.nanoTime() the press was received at, see takeInputStamp()
+    public void handleClick(int mouseX, int mouseY, int button, long timestamp) {
+        int posX = mouseX - OFFSET_X;
+        int posY = mouseY - OFFSET_Y;
 
-        if (mouse.getButton() == MouseEvent.BUTTON1 && !isSwap && !isMoving) {
+        if (button == MouseEvent.BUTTON1 && !isSwap && !isMoving()) {
             click++;
             if (click == 1) {
                 x0 = posX / TILE_SIZE + 1;
                 y0 = posY / TILE_SIZE + 1;
                 if (!isValidPosition(x0, y0)) {
                     click = 0; // Reset if click is outside playable area
+                } else {
+                    stampInput(timestamp); // Cursor appears
                 }
             } else if (click == 2) {
-                x = posX / TILE_SIZE + 1;
-                y = posY / TILE_SIZE + 1;
-                if (isValidPosition(x, y) && isAdjacentMove(x0, y0, x, y)) {
-                    swap(grid[y0][x0], grid[y][x]);
-                    isSwap = true;
-                }
+                trySwap(y0, x0, posY / TILE_SIZE + 1, posX / TILE_SIZE + 1);
                 click = 0;
+                stampInput(timestamp); // Cursor goes, and the swap starts if it was valid
             }
         }
     }
 
+    // Keeps the oldest input whose effect has not been presented yet
+    private void stampInput(long timestamp) {
+        if (inputStamp == 0 || timestamp - inputStamp < 0) {
+            inputStamp = timestamp;
+        }
+    }
+
+    // Receive time of the oldest click with an on-screen effect since the last call, 0 if none
+    public long takeInputStamp() {
+        long stamp = inputStamp;
+        inputStamp = 0;
+        return stamp;
+    }
+
+    // Starts swapping the gems at (r1, c1) and (r2, c2), rows and columns are 1-based
+    // Returns false if the board is busy or the swap would not create a match
+    public boolean trySwap(int r1, int c1, int r2, int c2) {
+        boolean accepted = !isSwap && !isMoving() && isValidPosition(c1, r1) && isValidPosition(c2, r2)
+                && isAdjacentMove(c1, r1, c2, r2) && isValidMove(r1, c1, r2, c2);
+        GameEvents.swap(r1, c1, r2, c2, accepted);
+        if (!accepted) {
+            return false;
+        }
+        if (replay != null) {
+            replay.addSwap(ticks, r1, c1, r2, c2);
+        }
+        hint = null;
+        x0 = c1;
+        y0 = r1;
+        x = c2;
+        y = r2;
+        swap(grid[y0][x0], grid[y][x]);
+        tween(grid[y0][x0], Animator.Easing.EASE_IN_OUT);
+        tween(grid[y][x], Animator.Easing.EASE_IN_OUT);
+        isSwap = true;
+        return true;
+    }
+
     // Checks if a position is within the playable grid
     private boolean isValidPosition(int x, int y) {
-        return x >= 1 && x <= SIZE && y >= 1 && y <= SIZE;
+        return x >= 1 && x <= size && y >= 1 && y <= size;
     }
 
     // Checks if the move is to an adjacent cell (not diagonal)
@@ -119,225 +312,547 @@ public class Board {
 
         grid[p1.getRow()][p1.getCol()] = p1;
         grid[p2.getRow()][p2.getCol()] = p2;
+        setCell(p1.getRow(), p1.getCol());
+        setCell(p2.getRow(), p2.getCol());
+    }
+
+    // Starts animating a piece from where it is now onto its cell
+    private void tween(Piece p, Animator.Easing easing) {
+        animator.moveTo(p, p.getCol() * TILE_SIZE, p.getRow() * TILE_SIZE, easing);
     }
 
+    // The update() phases below are package-private so the JMH benchmarks can time them one by one
+
     // Updates the game state (matches and animations)
     public int update() {
+        ticks++;
+        long start = profiler.start();
         findMatches();
+        profiler.stop(FrameProfiler.FIND_MATCHES, start);
+        start = profiler.start();
         animateMovement();
-        return processMatches();
+        profiler.stop(FrameProfiler.ANIMATE, start);
+        start = profiler.start();
+        int score = processMatches();
+        profiler.stop(FrameProfiler.PROCESS_MATCHES, start);
+        if (score == 0 && isIdle()) {
+            if (cascadeDepth > 0) {
+                GameEvents.cascade(cascadeDepth);
+                cascadeDepth = 0;
+            }
+            if (moveCount() == 0) {
+                reshuffle();
+            }
+        }
+        return score;
     }
 
-    // Finds matches of three or more gems in a row or column
-    private void findMatches() {
-        // Reset matches
-        for (int i = 1; i <= SIZE; i++) {
-            for (int j = 1; j <= SIZE; j++) {
-                grid[i][j].match = 0;
-            }
+    // Runs update() until the pending swap and every cascade has settled, returns the total score
+    public int resolveFully() {
+        int total = 0;
+        int score;
+        do {
+            score = update();
+            total += score;
+        } while (score > 0 || !isIdle());
+        return total;
+    }
+
+    // Headless: makes a valid swap and resolves its whole cascade chain in this one call, with no animation
+    // Each match group scores once, where update() scores a group on every tick pieces are still moving,
+    // but the board ends in the same state. Returns -1, changing nothing, if the swap is not allowed now
+    public int playMove(int r1, int c1, int r2, int c2) {
+        if (isSwap || isMoving() || !isValidPosition(c1, r1) || !isValidPosition(c2, r2)
+                || !isAdjacentMove(c1, r1, c2, r2) || !isValidMove(r1, c1, r2, c2)) {
+            return -1;
         }
+        hint = null;
+        x0 = c1;
+        y0 = r1;
+        x = c2;
+        y = r2;
+        swap(grid[y0][x0], grid[y][x]);
+        land(grid[y0][x0]);
+        land(grid[y][x]);
+        isSwap = true; // The first round stamps matches the way a played swap does
+        return resolveCascade();
+    }
 
-        if (isSwap) {
-            // Check rows and columns of swapped gems (y0, x0) and (y, x)
-            checkRow(y0);
-            checkRow(y);
-            checkColumn(x0);
-            checkColumn(x);
-        } else {
-            // Full grid scan for cascading matches
-            for (int i = 1; i <= SIZE; i++) {
-                checkRow(i);
-                checkColumn(i);
+    // Clears the matches on the board and every match the refills create until none are left
+    private int resolveCascade() {
+        int total = 0;
+        cascadeDepth = 0;
+        while (true) {
+            findMatches();
+            isSwap = false;
+            int score = scoreMatches();
+            if (score == 0) break;
+            total += score;
+            cascadeDepth++;
+            if (recordEvents && GameEvents.isMatchEnabled()) {
+                recordMatchEvents();
             }
+            collapseColumns(false);
+        }
+        if (cascadeDepth > 0 && recordEvents) {
+            GameEvents.cascade(cascadeDepth);
         }
+        cascadeDepth = 0;
+        if (moveCount() == 0) {
+            reshuffle();
+        }
+        return total;
     }
 
-    private void checkRow(int i) {
-        int start = 1, count = 1;
-        int currentKind = grid[i][1].getKind();
-        for (int j = 2; j <= SIZE; j++) {
-            if (grid[i][j].getKind() == currentKind && currentKind != INVALID_KIND) {
-                count++;
-            } else {
-                if (count >= 3) {
-                    for (int k = start; k < start + count; k++) {
-                        grid[i][k].match = count;
-                    }
+    // Copies everything that decides how this board plays on into s: gems, refill generator, the swap in flight
+    // and each piece's motion. Only cells are visited and nothing is allocated; s must be for this board's size
+    public void snapshot(BoardSnapshot s) {
+        checkSnapshot(s);
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                Piece p = grid[i][j];
+                int c = (i - 1) * size + j - 1;
+                s.kinds[c] = (byte) p.getKind();
+                s.dx[c] = p.x - j * TILE_SIZE;
+                s.dy[c] = p.y - i * TILE_SIZE;
+                int motion = 0;
+                if (p.animating) {
+                    motion = BoardSnapshot.ANIMATING | (p.easing == Animator.Easing.EASE_IN ? BoardSnapshot.EASE_IN : 0);
+                    s.fromDx[c] = p.fromX - j * TILE_SIZE;
+                    s.fromDy[c] = p.fromY - i * TILE_SIZE;
+                    s.elapsed[c] = p.elapsed;
                 }
-                start = j;
-                count = 1;
-                currentKind = grid[i][j].getKind();
+                s.motion[c] = (byte) motion;
             }
         }
-        if (count >= 3) {
-            for (int k = start; k < start + count; k++) {
-                grid[i][k].match = count;
+        if (fallsPending) {
+            for (Gravity g : gravity) {
+                for (int k = 0; k < g.falls.size(); k++) {
+                    s.motion[(g.falls.getRow(k) - 1) * size + g.falls.getCol(k) - 1] |= BoardSnapshot.FALL_PENDING;
+                }
             }
         }
+        s.seed = seed;
+        s.ticks = ticks;
+        s.randSeed = rand.getSeed();
+        s.randGamma = rand.getGamma();
+        s.cascadeDepth = cascadeDepth;
+        s.swapping = isSwap;
+        s.x0 = x0;
+        s.y0 = y0;
+        s.x = x;
+        s.y = y;
+        s.click = click;
+        s.fallsPending = fallsPending;
     }
 
-    private void checkColumn(int j) {
-        int start = 1, count = 1;
-        int currentKind = grid[1][j].getKind();
-        for (int i = 2; i <= SIZE; i++) {
-            if (grid[i][j].getKind() == currentKind && currentKind != INVALID_KIND) {
-                count++;
-            } else {
-                if (count >= 3) {
-                    for (int k = start; k < start + count; k++) {
-                        grid[k][j].match = count;
-                    }
+    // Puts this board back in the state s was taken in, with the same pieces; a restored board then plays on
+    // exactly as the original did. Any hint is dropped and JFR events stay as they were
+    public void restore(BoardSnapshot s) {
+        restore(s, true);
+    }
+
+    // Restores a settled position for search to play what-if moves on, with every piece on its cell and refills
+    // drawn from refillSeed instead of the original's generator; such copies emit no JFR events
+    void loadPosition(BoardSnapshot s, long refillSeed) {
+        restore(s, false);
+        rand.setSeed(refillSeed);
+        recordEvents = false;
+    }
+
+    private void restore(BoardSnapshot s, boolean motion) {
+        checkSnapshot(s);
+        clearMotion();
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                Piece p = grid[i][j];
+                int c = (i - 1) * size + j - 1;
+                p.setKind(s.kinds[c]);
+                p.match = 0;
+                setCell(i, j);
+                if (!motion) {
+                    land(p);
+                    continue;
+                }
+                p.x = j * TILE_SIZE + s.dx[c];
+                p.y = i * TILE_SIZE + s.dy[c];
+                p.prevX = p.x;
+                p.prevY = p.y;
+                int flags = s.motion[c];
+                if ((flags & BoardSnapshot.ANIMATING) != 0) {
+                    animator.resume(p, j * TILE_SIZE + s.fromDx[c], i * TILE_SIZE + s.fromDy[c], j * TILE_SIZE,
+                            i * TILE_SIZE, s.elapsed[c], (flags & BoardSnapshot.EASE_IN) != 0
+                                    ? Animator.Easing.EASE_IN : Animator.Easing.EASE_IN_OUT);
+                }
+                if ((flags & BoardSnapshot.FALL_PENDING) != 0) {
+                    // The piece is already drawn where its fall starts
+                    Gravity g = gravity[gravity.length == 1 ? 0 : (j - 1) / BandedGrid.BAND_WIDTH];
+                    g.falls.add(i, j);
                 }
-                start = i;
-                count = 1;
-                currentKind = grid[i][j].getKind();
             }
         }
-        if (count >= 3) {
-            for (int k = start; k < start + count; k++) {
-                grid[k][j].match = count;
+        fallsPending = motion && s.fallsPending;
+        seed = s.seed;
+        ticks = s.ticks;
+        rand.setState(s.randSeed, s.randGamma);
+        cascadeDepth = s.cascadeDepth;
+        isSwap = motion && s.swapping;
+        x0 = s.x0;
+        y0 = s.y0;
+        x = s.x;
+        y = s.y;
+        click = s.click;
+        hint = null;
+    }
+
+    private void checkSnapshot(BoardSnapshot s) {
+        if (s.getSize() != size || s.getGemTypes() != gemTypes) {
+            throw new IllegalArgumentException("Snapshot is for a " + s.getSize() + "x" + s.getSize() + " board with "
+                    + s.getGemTypes() + " gem types, this board is " + size + "x" + size + " with " + gemTypes);
+        }
+    }
+
+    // Stops every tween and forgets pending falls and match stamps
+    private void clearMotion() {
+        animator.clear();
+        for (Gravity g : gravity) {
+            g.falls.clear();
+        }
+        fallsPending = false;
+        matchedCount = 0;
+    }
+
+    // True when no swap is in flight and no piece is animating
+    public boolean isIdle() {
+        return !isSwap && !isMoving();
+    }
+
+    // Gem kind at a playable cell, rows and columns are 1-based
+    public int getKind(int row, int col) {
+        return grid[row][col].getKind();
+    }
+
+    // Number of swaps that would create a match on the settled board
+    public int getMoveCount() {
+        return moveCount();
+    }
+
+    // The n-th valid swap as {r1, c1, r2, c2}
+    public int[] getMove(int n) {
+        return getMove(n, new int[4]);
+    }
+
+    // Same as getMove(n), written into a caller-owned array
+    public int[] getMove(int n, int[] out) {
+        return banded != null ? banded.getMove(n, out) : moves.get(n, out);
+    }
+
+    // Highlights a chosen swap, such as Solver's best move, if it is still valid on the settled board
+    public void showHint(int[] move) {
+        hint = move != null && isIdle() && isValidMove(move[0], move[1], move[2], move[3]) ? move : null;
+    }
+
+    private boolean isHinted(int row, int col) {
+        return hint != null && ((hint[0] == row && hint[1] == col) || (hint[2] == row && hint[3] == col));
+    }
+
+    // True while a piece is still travelling or a gravity pass is waiting to be animated
+    boolean isMoving() {
+        return animator.isMoving() || fallsPending;
+    }
+
+    // Screen coordinates of a cell's centre, for synthesising clicks
+    static int screenX(int col) {
+        return OFFSET_X + (col - 1) * TILE_SIZE + TILE_SIZE / 2;
+    }
+
+    static int screenY(int row) {
+        return OFFSET_Y + (row - 1) * TILE_SIZE + TILE_SIZE / 2;
+    }
+
+    public int getGemTypes() {
+        return gemTypes;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Finds this pass's match groups, runs of three or more gems in a row or column joined where they cross,
+    // and stamps each group's size into its pieces for gravity. After a swap only the rows and columns
+    // of the swapped gems (y0, x0) and (y, x) count
+    void findMatches() {
+        for (int k = 0; k < matchedCount; k++) {
+            matched[k].match = 0;
+        }
+        matchedCount = 0;
+        groups.clear();
+        if (banded != null) {
+            banded.findRuns(isSwap, y0, x0, y, x);
+            banded.addRunsTo(groups);
+        } else {
+            bits.findRuns();
+            addRuns(true, isSwap ? BitBoard.rowMask(y0) | BitBoard.rowMask(y) : -1L);
+            addRuns(false, isSwap ? BitBoard.colMask(x0) | BitBoard.colMask(x) : -1L);
+        }
+        groups.build(cascadeDepth);
+        for (int g = 0; g < groups.getGroupCount(); g++) {
+            for (int k = 0; k < groups.getLength(g); k++) {
+                Piece p = grid[groups.getRow(g, k)][groups.getCol(g, k)];
+                p.match = groups.getLength(g);
+                matched[matchedCount++] = p;
             }
         }
     }
 
-    // Animates piece movement towards their target positions
-    private void animateMovement() {
-        int speedSwapAnimation = 5;
-        isMoving = false;
-        for (int i = 1; i <= SIZE; i++) {
-            for (int j = 1; j <= SIZE; j++) {
-                Piece p = grid[i][j];
-                int dx = 0, dy = 0;
-                for (int n = 0; n < speedSwapAnimation; n++) {
-                    dx = p.getX() - p.getCol() * TILE_SIZE;
-                    dy = p.getY() - p.getRow() * TILE_SIZE;
-                    if (dx != 0) p.x -= dx / Math.abs(dx);
-                    if (dy != 0) p.y -= dy / Math.abs(dy);
+    // Adds the bitboard's runs of one direction that lie in filter to the groups
+    private void addRuns(boolean horizontal, long filter) {
+        for (int n = 3; n <= BitBoard.SIZE; n++) {
+            long runs = (horizontal ? bits.getHorizontal(n) : bits.getVertical(n)) & filter;
+            while (runs != 0) {
+                int bit = Long.numberOfTrailingZeros(runs);
+                groups.addRun(bit / BitBoard.SIZE + 1, bit % BitBoard.SIZE + 1, n, horizontal);
+                for (int k = 0; k < n; k++) {
+                    runs &= ~(1L << (bit + (horizontal ? k : k * BitBoard.SIZE)));
                 }
-                if (dx != 0 || dy != 0)
-                    isMoving = true;
             }
         }
     }
 
-    // Processes matches, removes matched gems, and refills the board,calculate score
-    private int processMatches() {
-        int score = 0;
-        // Create a set to track which gems have already been scored to avoid double counting
-        boolean[][] scored = new boolean[SIZE + 2][SIZE + 2];
-
-        // Calculate score for each unique match
-        for (int i = 1; i <= SIZE; i++) {
-            for (int j = 1; j <= SIZE; j++) {
-                if (grid[i][j].match > 0 && !scored[i][j]) {
-                    int matchLength = grid[i][j].match;
-
-                    // Base score: 100 points for 3-gem match
-                    int matchScore = 10;
-
-                    // Add 10% bonus for each gem beyond 3
-                    if (matchLength > 3) {
-                        double bonusMultiplier = 1.0 + (matchLength - 3) * 0.1;
-                        matchScore = (int)(matchScore * bonusMultiplier);
-                    }
-                    score += matchScore;
-
-                    // Mark all gems in this match as scored
-                    markMatchAsScored(i, j, matchLength, scored);
+    // Animates piece movement towards their target positions
+    // Gravity's falls and spawns become tweens here; then one fixed step of time passes for every piece in motion
+    void animateMovement() {
+        if (fallsPending) {
+            for (Gravity g : gravity) {
+                for (int k = 0; k < g.falls.size(); k++) {
+                    tween(grid[g.falls.getRow(k)][g.falls.getCol(k)], Animator.Easing.EASE_IN);
                 }
+                g.falls.clear();
             }
+            fallsPending = false;
         }
+        animator.step(TICK_NANOS);
+    }
 
-        if (isSwap && !isMoving) {
+    // Processes matches, removes matched gems, and refills the board,calculate score
+    int processMatches() {
+        int score = scoreMatches();
+
+        if (isSwap && !isMoving()) {
             if (score == 0) {
                 // Invalid move, swap back
                 swap(grid[y0][x0], grid[y][x]);
+                tween(grid[y0][x0], Animator.Easing.EASE_IN_OUT);
+                tween(grid[y][x], Animator.Easing.EASE_IN_OUT);
             }
             isSwap = false;
         }
 
-        if (!isMoving && score > 0) {
-            // Move gems down to fill gaps
-            for (int i = SIZE; i > 0; i--) {
-                for (int j = 1; j <= SIZE; j++) {
-                    if (grid[i][j].match != 0) {
-                        for (int n = i; n > 0; n--) {
-                            if (grid[n][j].match == 0) {
-                                swap(grid[n][j], grid[i][j]);
-                                break;
-                            }
-                        }
-                    }
-                }
+        if (!isMoving() && score > 0) {
+            cascadeDepth++;
+            if (GameEvents.isMatchEnabled()) {
+                recordMatchEvents();
             }
+            collapseColumns(true);
+            hint = null;
+        }
+        return score;
+    }
 
-            // Generate new gems for matched ones
-            for (int j = 1; j <= SIZE; j++) {
-                for (int i = SIZE, n = 0; i > 0; i--) {
-                    if (grid[i][j].match != 0) {
-                        grid[i][j].setKind(rand.nextInt(GEM_TYPES));
-                        grid[i][j].y = -TILE_SIZE * n++;
-                        grid[i][j].match = 0;
-                    }
+    // Scores every match group of this pass: each of its runs scores 10, plus 10% per gem beyond 3
+    private int scoreMatches() {
+        int score = 0;
+        for (int g = 0; g < groups.getGroupCount(); g++) {
+            for (int k = 0; k < groups.getRunCount(g); k++) {
+                int matchLength = groups.getRunLength(groups.getRun(g, k));
+                int matchScore = 10;
+                if (matchLength > 3) {
+                    double bonusMultiplier = 1.0 + (matchLength - 3) * 0.1;
+                    matchScore = (int)(matchScore * bonusMultiplier);
                 }
+                score += matchScore;
             }
         }
         return score;
     }
 
-    // Helper method to mark all gems in a match as scored
-    private void markMatchAsScored(int startRow, int startCol, int matchLength, boolean[][] scored) {
-        // Check if this is a horizontal match
-        boolean isHorizontalMatch = false;
-        if (startCol + matchLength - 1 <= SIZE) {
-            isHorizontalMatch = true;
-            for (int k = 1; k < matchLength; k++) {
-                if (startCol + k > SIZE || grid[startRow][startCol + k].match != matchLength) {
-                    isHorizontalMatch = false;
-                    break;
+    // Gravity in one bottom-up pass per column: survivors drop over the matched cells, which are
+    // recycled as new gems stacked above the board. With animate, every fall and spawn goes into falls
+    // for animateMovement(); otherwise the pieces land on their cells at once.
+    // Banded boards give each band of columns its own generator split off in band order, so a seed
+    // refills the same way whatever the core count
+    private void collapseColumns(boolean animate) {
+        fallsPending = animate;
+        if (gravity.length == 1) {
+            collapseColumns(1, size, gravity[0], animate);
+            return;
+        }
+        for (Gravity g : gravity) {
+            g.rand = rand.split();
+        }
+        banded.forBands((band, from, to) -> collapseColumns(from, to, gravity[band], animate));
+    }
+
+    private void collapseColumns(int from, int to, Gravity g, boolean animate) {
+        for (int j = from; j <= to; j++) {
+            // Rows below the lowest match stay put
+            int start = groups.getLowestRow(j);
+            int write = start, cleared = 0, bottom = 0;
+            for (int read = start; read >= 1; read--) {
+                Piece p = grid[read][j];
+                if (p.match != 0) {
+                    if (bottom == 0) bottom = read;
+                    g.cleared[cleared++] = p;
+                    continue;
+                }
+                if (write != read) {
+                    grid[write][j] = p;
+                    p.setRow(write);
+                    if (animate) {
+                        g.falls.add(write, j);
+                    } else {
+                        land(p);
+                    }
+                }
+                write--;
+            }
+            // New gems fill the top, the lowest one drawn first and starting just above row 1
+            for (int i = write, n = 0; i >= 1; i--, n++) {
+                Piece p = g.cleared[n];
+                grid[i][j] = p;
+                p.setRow(i);
+                p.setKind(g.rand.nextInt(gemTypes));
+                p.match = 0;
+                if (animate) {
+                    p.y = -TILE_SIZE * n;
+                    p.prevX = p.x;
+                    p.prevY = p.y;
+                    g.falls.add(i, j);
+                } else {
+                    land(p);
                 }
             }
+            for (int i = 1; i <= bottom; i++) {
+                setCell(i, j);
+            }
         }
+    }
 
-        if (isHorizontalMatch) {
-            // Mark horizontal match
-            for (int k = 0; k < matchLength; k++) {
-                if (startCol + k <= SIZE) {
-                    scored[startRow][startCol + k] = true;
-                }
+    // Moves a piece straight onto its cell
+    private void land(Piece p) {
+        p.x = p.getCol() * TILE_SIZE;
+        p.y = p.getRow() * TILE_SIZE;
+        p.prevX = p.x;
+        p.prevY = p.y;
+    }
+
+    // One event per run being cleared, read from this pass's match groups
+    private void recordMatchEvents() {
+        for (int g = 0; g < groups.getGroupCount(); g++) {
+            for (int k = 0; k < groups.getRunCount(g); k++) {
+                int run = groups.getRun(g, k);
+                GameEvents.match(groups.getRunRow(run), groups.getRunCol(run), groups.getRunLength(run),
+                        groups.isRunHorizontal(run));
             }
-        } else {
-            // Must be vertical match
-            for (int k = 0; k < matchLength; k++) {
-                if (startRow + k <= SIZE) {
-                    scored[startRow + k][startCol] = true;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Records every accepted swap into replay from now on; the replay format only holds 8x8 moves
+    public void setReplay(Replay replay) {
+        if (replay != null && size != DEFAULT_SIZE) {
+            throw new IllegalStateException("Replays record " + DEFAULT_SIZE + "x" + DEFAULT_SIZE + " boards only");
+        }
+        this.replay = replay;
+    }
+
+    // FNV-1a over the gem kinds, for checking that a replay ended on the same board
+    public long hash() {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                h = (h ^ grid[i][j].getKind()) * 0x100000001b3L;
+            }
+        }
+        return h;
+    }
+
+    // Times the update phases into profiler
+    public void setProfiler(FrameProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // Fraction of the next step already elapsed, pieces are drawn that far past their previous position
+    public void setRenderAlpha(double renderAlpha) {
+        this.renderAlpha = renderAlpha;
+    }
+
+    private int renderX(Piece p) {
+        return p.prevX + (int) Math.round((p.x - p.prevX) * renderAlpha);
+    }
+
+    private int renderY(Piece p) {
+        return p.prevY + (int) Math.round((p.y - p.prevY) * renderAlpha);
+    }
+
+    // Marks the screen area of every piece that moved, changed kind or gained/lost the cursor
+    public void collectDamage(DamageTracker damage) {
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                Piece p = grid[i][j];
+                int px = renderX(p), py = renderY(p);
+                boolean highlight = (click == 1 && x0 == j && y0 == i) || isHinted(i, j);
+                if (px != p.drawnX || py != p.drawnY || p.getKind() != p.drawnKind
+                        || highlight != p.drawnHighlight) {
+                    damage.add(p.drawnX + (OFFSET_X - TILE_SIZE - DAMAGE_LEFT), p.drawnY + (OFFSET_Y - TILE_SIZE),
+                            DAMAGE_WIDTH, DAMAGE_HEIGHT);
+                    damage.add(px + (OFFSET_X - TILE_SIZE - DAMAGE_LEFT), py + (OFFSET_Y - TILE_SIZE),
+                            DAMAGE_WIDTH, DAMAGE_HEIGHT);
+                    p.drawnX = px;
+                    p.drawnY = py;
+                    p.drawnKind = p.getKind();
+                    p.drawnHighlight = highlight;
                 }
             }
         }
     }
 
-    // Draws the board and gems to the provided Graphics2D context
-    public void draw(Graphics2D g2) {
-        for (int i = 1; i <= SIZE; i++) {
-            for (int j = 1; j <= SIZE; j++) {
+    public void draw(Graphics2D g2, Assets assets) {
+        draw(g2, assets, null);
+    }
+
+    // Draws the board and gems to the provided Graphics2D context, only pieces touching area if given
+    public void draw(Graphics2D g2, Assets assets, Rectangle area) {
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
                 Piece p = grid[i][j];
+                int px = renderX(p), py = renderY(p);
+                int left = px + (OFFSET_X - TILE_SIZE - DAMAGE_LEFT);
+                int top = py + (OFFSET_Y - TILE_SIZE);
+                if (area != null && (left >= area.x + area.width || area.x >= left + DAMAGE_WIDTH
+                        || top >= area.y + area.height || area.y >= top + DAMAGE_HEIGHT)) {
+                    continue;
+                }
                 if (p.getKind() != INVALID_KIND) {
                     g2.drawImage(
-                            assets.getGems().getSubimage(p.getKind() * 49, 0, 49, 49),
-                            p.x + (OFFSET_X - TILE_SIZE),
-                            p.y + (OFFSET_Y - TILE_SIZE),
-                            50,
-                            50,
+                            assets.getGemSprite(p.getKind()),
+                            px + (OFFSET_X - TILE_SIZE),
+                            py + (OFFSET_Y - TILE_SIZE),
                             null
                     );
 
-                    if (click == 1 && x0 == j && y0 == i) {
+                    if ((click == 1 && x0 == j && y0 == i) || isHinted(i, j)) {
                         g2.drawImage(
-                                assets.getCursor(),
-                                p.x + (OFFSET_X - TILE_SIZE-2),
-                                p.y + (OFFSET_Y - TILE_SIZE+4),
-                                assets.getCursor().getWidth(),
-                                assets.getCursor().getHeight(),
+                                assets.getCursorSprite(),
+                                px + (OFFSET_X - TILE_SIZE-2),
+                                py + (OFFSET_Y - TILE_SIZE+4),
                                 null
                         );
                     }
@@ -0,0 +1,181 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A board at one instant: gem kinds packed one per byte, the refill generator's state, the swap in flight and
+// every piece still moving, plus the score and timer of the session around it. Board.snapshot() fills one and
+// Board.restore() plays it back into any board of the same size; both reuse the arrays, so search can restore
+// a position again and again without building pieces. An 8x8 game at rest is under 200 bytes on disk.
+// File layout: magic, version, size, gem types, board and session fields, the kinds, then only the moving cells
+public class BoardSnapshot {
+    private static final int MAGIC = 0x424A5353; // "BJSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * 4 + 8 * 4 + 4 * 7 + 1 + 8 * 3 + 4;
+    private static final int MOTION_BYTES = 4 + 1 + 4 * 4 + 8;
+
+    // Motion flags per cell
+    static final int ANIMATING = 1; // Tweening from (fromDx, fromDy) for elapsed nanoseconds
+    static final int EASE_IN = 2; // The tween's easing, EASE_IN_OUT when clear
+    static final int FALL_PENDING = 4; // Gravity moved it, its tween starts on the next tick
+
+    final int size;
+    final int gemTypes;
+    final byte[] kinds; // Row-major, cell (row, col) at (row - 1) * size + col - 1
+    // Where each cell's piece is drawn relative to the cell, and where its tween started
+    final byte[] motion;
+    final int[] dx;
+    final int[] dy;
+    final int[] fromDx;
+    final int[] fromDy;
+    final long[] elapsed;
+
+    long seed;
+    long ticks;
+    long randSeed;
+    long randGamma;
+    int cascadeDepth;
+    boolean swapping; // A swap of (y0, x0) and (y, x) is in flight
+    int x0, y0, x, y;
+    int click;
+    boolean fallsPending;
+
+    // The session around the board, filled by Game and GameTimer
+    int score;
+    double timeRemaining;
+    double currentSpeed;
+    double lastSpeedUpTime;
+
+    public BoardSnapshot(int size, int gemTypes) {
+        this.size = size;
+        this.gemTypes = gemTypes;
+        int cells = size * size;
+        kinds = new byte[cells];
+        motion = new byte[cells];
+        dx = new int[cells];
+        dy = new int[cells];
+        fromDx = new int[cells];
+        fromDy = new int[cells];
+        elapsed = new long[cells];
+    }
+
+    public int getSize() { return size; }
+    public int getGemTypes() { return gemTypes; }
+    public long getTicks() { return ticks; }
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    // Whether cell c needs more than its kind to be restored
+    private boolean isMoving(int c) {
+        return motion[c] != 0 || dx[c] != 0 || dy[c] != 0;
+    }
+
+    // Writes the snapshot with one channel write, replacing any earlier file
+    public void write(Path path) throws IOException {
+        int moving = 0;
+        for (int c = 0; c < kinds.length; c++) {
+            if (isMoving(c)) moving++;
+        }
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + kinds.length + moving * MOTION_BYTES);
+        out.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(gemTypes);
+        out.putLong(seed).putLong(ticks).putLong(randSeed).putLong(randGamma);
+        out.putInt(cascadeDepth).putInt(x0).putInt(y0).putInt(x).putInt(y).putInt(click).putInt(score);
+        out.put((byte) ((swapping ? 1 : 0) | (fallsPending ? 2 : 0)));
+        out.putDouble(timeRemaining).putDouble(currentSpeed).putDouble(lastSpeedUpTime);
+        out.put(kinds);
+        out.putInt(moving);
+        for (int c = 0; c < kinds.length; c++) {
+            if (isMoving(c)) {
+                out.putInt(c).put(motion[c]).putInt(dx[c]).putInt(dy[c]).putInt(fromDx[c]).putInt(fromDy[c])
+                        .putLong(elapsed[c]);
+            }
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    // Replaces this snapshot with one read from path, which must hold a board of the same size and gem types
+    // Throws IOException on a file that is not one, leaving this snapshot unusable
+    public void read(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > HEADER_BYTES + (long) kinds.length * (1 + MOTION_BYTES)) {
+                throw new IOException("Not a " + size + "x" + size + " board snapshot: " + path);
+            }
+            in = ByteBuffer.allocate((int) length);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+            }
+            in.flip();
+        }
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a board snapshot: " + path);
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported board snapshot version " + version + ": " + path);
+            }
+            int savedSize = in.getInt(), savedGemTypes = in.getInt();
+            if (savedSize != size || savedGemTypes != gemTypes) {
+                throw new IOException("Snapshot holds a " + savedSize + "x" + savedSize + " board with " + savedGemTypes
+                        + " gem types, expected " + size + "x" + size + " with " + gemTypes + ": " + path);
+            }
+            seed = in.getLong();
+            ticks = in.getLong();
+            randSeed = in.getLong();
+            randGamma = in.getLong();
+            if ((randGamma & 1) == 0) {
+                throw new IOException("Bad generator state: " + path);
+            }
+            cascadeDepth = in.getInt();
+            x0 = in.getInt();
+            y0 = in.getInt();
+            x = in.getInt();
+            y = in.getInt();
+            click = in.getInt();
+            if (Math.min(Math.min(x0, y0), Math.min(x, y)) < 0 || Math.max(Math.max(x0, y0), Math.max(x, y)) > size) {
+                throw new IOException("Swap cell out of range: " + path);
+            }
+            score = in.getInt();
+            int flags = in.get();
+            swapping = (flags & 1) != 0;
+            fallsPending = (flags & 2) != 0;
+            timeRemaining = in.getDouble();
+            currentSpeed = in.getDouble();
+            lastSpeedUpTime = in.getDouble();
+            in.get(kinds);
+            for (byte kind : kinds) {
+                if (kind < 0 || kind >= gemTypes) {
+                    throw new IOException("Gem kind " + kind + " out of range: " + path);
+                }
+            }
+            Arrays.fill(motion, (byte) 0);
+            Arrays.fill(dx, 0);
+            Arrays.fill(dy, 0);
+            int moving = in.getInt();
+            for (int k = 0; k < moving; k++) {
+                int c = in.getInt();
+                if (c < 0 || c >= kinds.length) {
+                    throw new IOException("Cell " + c + " out of range: " + path);
+                }
+                motion[c] = in.get();
+                dx[c] = in.getInt();
+                dy[c] = in.getInt();
+                fromDx[c] = in.getInt();
+                fromDy[c] = in.getInt();
+                elapsed[c] = in.getLong();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated board snapshot: " + path);
+        }
+    }
+}
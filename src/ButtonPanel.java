@@ -30,14 +30,14 @@ public class ButtonPanel extends JPanel {
             public void mousePressed(MouseEvent e) {
                 if (game.getGameState() == Game.GameState.STOPPED || game.getGameState() == Game.GameState.PAUSED) {
                     if (startButtonRect.contains(e.getPoint())) {
-                        game.startGame();
+                        game.requestStart();
                     }
                 }
                 if (resetButtonRect.contains(e.getPoint())) {
-                    game.resetGame();
+                    game.requestReset();
                 }
                 if (game.getGameState() == Game.GameState.STARTED && stopButtonRect.contains(e.getPoint())) {
-                    game.stopGame();
+                    game.requestStop();
                 }
                 repaint();
             }
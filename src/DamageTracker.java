@@ -0,0 +1,94 @@
+import java.awt.Rectangle;
+
+// Collects the screen rectangles that changed since the last presented frame
+// Overlapping rectangles are merged; past MAX_RECTS the whole frame counts as damaged
+public class DamageTracker {
+    private static final int MAX_RECTS = 32;
+
+    private final int width;
+    private final int height;
+    private final Rectangle[] rects = new Rectangle[MAX_RECTS];
+    private int count;
+    private boolean full;
+
+    public DamageTracker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        for (int i = 0; i < MAX_RECTS; i++) {
+            rects[i] = new Rectangle();
+        }
+        this.full = true;
+    }
+
+    public void add(int x, int y, int w, int h) {
+        if (full) return;
+        // Clamp to the frame
+        int x2 = Math.min(x + w, width), y2 = Math.min(y + h, height);
+        x = Math.max(x, 0);
+        y = Math.max(y, 0);
+        if (x >= x2 || y >= y2) return;
+
+        // Grow into an overlapping rectangle, then keep folding in any it now overlaps
+        Rectangle target = null;
+        for (int i = 0; i < count; i++) {
+            Rectangle r = rects[i];
+            if (x <= r.x + r.width && r.x <= x2 && y <= r.y + r.height && r.y <= y2) {
+                target = r;
+                break;
+            }
+        }
+        if (target == null) {
+            if (count == MAX_RECTS) {
+                full = true;
+                return;
+            }
+            rects[count++].setBounds(x, y, x2 - x, y2 - y);
+            return;
+        }
+        union(target, x, y, x2, y2);
+        for (int i = 0; i < count; i++) {
+            Rectangle r = rects[i];
+            if (r != target && target.x <= r.x + r.width && r.x <= target.x + target.width
+                    && target.y <= r.y + r.height && r.y <= target.y + target.height) {
+                union(target, r.x, r.y, r.x + r.width, r.y + r.height);
+                // Drop the folded rectangle and rescan, the grown one may now touch others
+                Rectangle last = rects[--count];
+                rects[count] = r;
+                rects[i] = last;
+                i = -1;
+            }
+        }
+    }
+
+    private static void union(Rectangle r, int x1, int y1, int x2, int y2) {
+        int nx = Math.min(r.x, x1), ny = Math.min(r.y, y1);
+        int nx2 = Math.max(r.x + r.width, x2), ny2 = Math.max(r.y + r.height, y2);
+        r.setBounds(nx, ny, nx2 - nx, ny2 - ny);
+    }
+
+    // Marks the whole frame as damaged, e.g. after a state change or an expose
+    public void addAll() {
+        full = true;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public boolean isEmpty() {
+        return !full && count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Rectangle get(int i) {
+        return rects[i];
+    }
+
+    public void clear() {
+        count = 0;
+        full = false;
+    }
+}
@@ -0,0 +1,28 @@
+// What one gravity pass did to the board, filled by Board's column compaction and consumed by animateMovement()
+// Each entry is a cell whose piece has to move there: a survivor that fell some rows, or a new gem that
+// compaction already placed above the top of the board. Arrays are reused, nothing is allocated per pass
+public class FallPlan {
+    private final int[] rows;
+    private final int[] cols;
+    private int count;
+
+    // Room for one entry per cell gravity can move, size * size for a whole board
+    public FallPlan(int capacity) {
+        rows = new int[capacity];
+        cols = new int[capacity];
+    }
+
+    void add(int row, int col) {
+        rows[count] = row;
+        cols[count] = col;
+        count++;
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    public int size() { return count; }
+    public int getRow(int i) { return rows[i]; }
+    public int getCol(int i) { return cols[i]; }
+}
@@ -0,0 +1,78 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Streams profiler frames to a CSV file (nanoseconds per phase) from a background thread
+// The game thread only copies a row into a preallocated ring; rows are dropped, never waited for, when it is full
+public class FrameCsvWriter implements Runnable {
+    private static final int CAPACITY = 1024; // Power of two
+    private static final long IDLE_SLEEP_MILLIS = 100;
+
+    private final Path path;
+    private final long[][] rows = new long[CAPACITY][FrameProfiler.PHASES];
+    private final AtomicLong head = new AtomicLong(); // Next row to write, writer thread only
+    private final AtomicLong tail = new AtomicLong(); // Next row to fill, game thread only
+    private final AtomicLong dropped = new AtomicLong();
+
+    private FrameCsvWriter(Path path) {
+        this.path = path;
+    }
+
+    // Starts a daemon writer for path
+    public static FrameCsvWriter start(String path) {
+        FrameCsvWriter writer = new FrameCsvWriter(Path.of(path));
+        Thread thread = new Thread(writer, "FrameCsvWriter");
+        thread.setDaemon(true);
+        thread.start();
+        return writer;
+    }
+
+    // Single producer: the game thread
+    public void offer(long[] row) {
+        long t = tail.get();
+        if (t - head.get() >= CAPACITY) {
+            dropped.incrementAndGet();
+            return;
+        }
+        System.arraycopy(row, 0, rows[(int) (t & (CAPACITY - 1))], 0, FrameProfiler.PHASES);
+        tail.lazySet(t + 1); // Publishes the row copied above
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void run() {
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("row");
+            for (String name : FrameProfiler.NAMES) {
+                out.write(',');
+                out.write(name);
+            }
+            out.newLine();
+            while (true) {
+                long h = head.get();
+                if (h == tail.get()) {
+                    out.flush();
+                    Thread.sleep(IDLE_SLEEP_MILLIS);
+                    continue;
+                }
+                long[] row = rows[(int) (h & (CAPACITY - 1))];
+                out.write(Long.toString(h));
+                for (long nanos : row) {
+                    out.write(',');
+                    out.write(Long.toString(nanos));
+                }
+                out.newLine();
+                head.lazySet(h + 1); // Hands the row back to the game thread
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing frame profile: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
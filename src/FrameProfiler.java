@@ -0,0 +1,185 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+// Per-phase frame timings kept in preallocated ring buffers, shown as an overlay (F4) and optionally streamed to CSV
+// A frame is one pass of the game loop: the update steps it ran plus one draw
+public class FrameProfiler {
+    public static final int INPUT = 0;
+    public static final int FIND_MATCHES = 1;
+    public static final int ANIMATE = 2;
+    public static final int PROCESS_MATCHES = 3;
+    public static final int TIMER_UPDATE = 4;
+    public static final int DRAW_BACKGROUND = 5;
+    public static final int DRAW_BOARD = 6;
+    public static final int DRAW_TIMER = 7;
+    public static final int DRAW_SCORE = 8;
+    public static final int DRAW_LEADERBOARD = 9;
+    public static final int PRESENT = 10;
+    public static final int FRAME = 11;
+    public static final int PHASES = 12;
+    public static final String[] NAMES = {
+            "input", "findMatches", "animateMovement", "processMatches", "timer.update",
+            "draw.background", "draw.board", "draw.timer", "draw.score", "draw.leaderboard", "present", "frame"
+    };
+
+    // Shared instance that is never enabled, for boards nobody profiles
+    public static final FrameProfiler DISABLED = new FrameProfiler(null);
+
+    private static final int WINDOW = 256;
+    private static final int TABLE_REFRESH_FRAMES = 30;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 10);
+    private static final int TABLE_X = 645;
+    private static final int TABLE_Y = 196;
+    private static final int TABLE_LINE = 10;
+    private static final int TABLE_WIDTH = 250;
+    private static final int GRAPH_X = 640;
+    private static final int GRAPH_Y = 440;
+    private static final int GRAPH_WIDTH = 250;
+    private static final int GRAPH_HEIGHT = 110;
+    // The graph is two 60 Hz frame budgets tall
+    private static final long GRAPH_SPAN_NANOS = 33_333_333L;
+    private static final long BUDGET_NANOS = 16_666_667L;
+    private static final Color PANEL_COLOR = new Color(0, 0, 0, 160);
+    private static final Color UPDATE_COLOR = Color.GREEN;
+    private static final Color DRAW_COLOR = Color.CYAN;
+    private static final Color PRESENT_COLOR = Color.MAGENTA;
+    private static final Color OTHER_COLOR = Color.DARK_GRAY;
+
+    private final long[][] samples = new long[PHASES][WINDOW];
+    private final long[] current = new long[PHASES];
+    private final long[] sorted = new long[WINDOW];
+    private final FrameCsvWriter csv;
+    private int cursor;
+    private int filled;
+    private boolean visible;
+    private boolean wantVisible; // F4 takes effect at the next frame, so no frame is timed from half its phases
+    private long frameStart;
+    private int framesSinceTable;
+    private HudLabel[] tableLabels; // Created when first shown
+
+    // csv may be null
+    public FrameProfiler(FrameCsvWriter csv) {
+        this.csv = csv;
+    }
+
+    public boolean isEnabled() {
+        return visible || csv != null;
+    }
+
+    public void toggleVisible() {
+        wantVisible = !wantVisible;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    // Returns a start time for stop(), or 0 when disabled
+    public long start() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    public void stop(int phase, long start) {
+        if (isEnabled()) {
+            current[phase] += System.nanoTime() - start;
+        }
+    }
+
+    public void beginFrame() {
+        visible = wantVisible;
+        frameStart = start();
+    }
+
+    // Moves this frame's phase totals into the ring and the CSV stream
+    public void endFrame() {
+        if (!isEnabled()) return;
+        current[FRAME] = System.nanoTime() - frameStart;
+        for (int phase = 0; phase < PHASES; phase++) {
+            samples[phase][cursor] = current[phase];
+        }
+        if (csv != null) {
+            csv.offer(current);
+        }
+        Arrays.fill(current, 0L);
+        cursor = (cursor + 1) % WINDOW;
+        filled = Math.min(filled + 1, WINDOW);
+        framesSinceTable++;
+    }
+
+    // p-th fraction of the phase's time over the last WINDOW frames
+    public long percentile(int phase, double p) {
+        if (filled == 0) return 0;
+        System.arraycopy(samples[phase], 0, sorted, 0, WINDOW);
+        Arrays.sort(sorted, 0, filled);
+        return sorted[Math.min(filled - 1, (int) (p * filled))];
+    }
+
+    // The graph changes every frame while shown, the table every TABLE_REFRESH_FRAMES
+    public void collectDamage(DamageTracker damage) {
+        if (!visible) return;
+        damage.add(GRAPH_X, GRAPH_Y, GRAPH_WIDTH, GRAPH_HEIGHT);
+        if (tableLabels == null) {
+            tableLabels = new HudLabel[PHASES];
+            for (int phase = 0; phase < PHASES; phase++) {
+                tableLabels[phase] = new HudLabel(FONT, Color.WHITE, TABLE_X, TABLE_Y + phase * TABLE_LINE, TABLE_WIDTH);
+            }
+            framesSinceTable = TABLE_REFRESH_FRAMES;
+        }
+        if (framesSinceTable >= TABLE_REFRESH_FRAMES) {
+            framesSinceTable = 0;
+            boolean changed = false;
+            for (int phase = 0; phase < PHASES; phase++) {
+                long p50 = Math.min(99_999, percentile(phase, 0.50) / 1000);
+                long p99 = Math.min(99_999, percentile(phase, 0.99) / 1000);
+                long key = p50 * 100_000 + p99;
+                if (tableLabels[phase].isStale(key)) {
+                    tableLabels[phase].render(key, String.format("%-16s p50 %5dus p99 %5dus", NAMES[phase], p50, p99));
+                    changed = true;
+                }
+            }
+            if (changed) {
+                damage.add(TABLE_X, TABLE_Y - TABLE_LINE - 2, TABLE_WIDTH, PHASES * TABLE_LINE + 6);
+            }
+        }
+    }
+
+    // Stacked per-frame graph of update, draw, present and other time, newest frame on the right
+    public void draw(Graphics2D g2) {
+        if (!visible || tableLabels == null) return;
+        g2.setColor(PANEL_COLOR);
+        g2.fillRect(GRAPH_X, GRAPH_Y, GRAPH_WIDTH, GRAPH_HEIGHT);
+        for (int k = Math.max(0, GRAPH_WIDTH - filled); k < GRAPH_WIDTH; k++) {
+            int frame = Math.floorMod(cursor - GRAPH_WIDTH + k, WINDOW);
+            long update = 0, draw = 0;
+            for (int phase = INPUT; phase <= TIMER_UPDATE; phase++) update += samples[phase][frame];
+            for (int phase = DRAW_BACKGROUND; phase <= DRAW_LEADERBOARD; phase++) draw += samples[phase][frame];
+            long present = samples[PRESENT][frame];
+            long other = Math.max(0, samples[FRAME][frame] - update - draw - present);
+
+            int y = GRAPH_Y + GRAPH_HEIGHT;
+            y = bar(g2, GRAPH_X + k, y, update, UPDATE_COLOR);
+            y = bar(g2, GRAPH_X + k, y, draw, DRAW_COLOR);
+            y = bar(g2, GRAPH_X + k, y, present, PRESENT_COLOR);
+            bar(g2, GRAPH_X + k, y, other, OTHER_COLOR);
+        }
+        g2.setColor(Color.RED);
+        int budgetY = GRAPH_Y + GRAPH_HEIGHT - (int) (GRAPH_HEIGHT * BUDGET_NANOS / GRAPH_SPAN_NANOS);
+        g2.drawLine(GRAPH_X, budgetY, GRAPH_X + GRAPH_WIDTH - 1, budgetY);
+
+        for (HudLabel label : tableLabels) {
+            label.draw(g2);
+        }
+    }
+
+    // Draws one stacked segment upwards from bottom, returns its top
+    private static int bar(Graphics2D g2, int x, int bottom, long nanos, Color color) {
+        int height = (int) Math.min(bottom - GRAPH_Y, GRAPH_HEIGHT * nanos / GRAPH_SPAN_NANOS);
+        if (height > 0) {
+            g2.setColor(color);
+            g2.fillRect(x, bottom - height, 1, height);
+        }
+        return bottom - height;
+    }
+}
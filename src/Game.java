@@ -1,6 +1,15 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class Game extends JPanel implements Runnable {
     public static final int WIDTH = 900;
@@ -8,6 +17,35 @@ public class Game extends JPanel implements Runnable {
     public static final int BUTTON_PANEL_HEIGHT = 50; // Height of ButtonPanel
     private static final int TARGET_FPS = 60;
     private static final long TARGET_FRAME_TIME = 1000 / TARGET_FPS;
+    // Fixed simulation step; animation speeds are tuned per step
+    private static final long STEP_NANOS = TARGET_FRAME_TIME * 1_000_000;
+    private static final double STEP_SECONDS = STEP_NANOS / 1e9;
+    // Longest stretch of real time caught up at once, so a stall does not snowball into more stalls
+    private static final long MAX_CATCH_UP_NANOS = 250_000_000L;
+    private static final int BUFFER_COUNT = 3;
+    private static final int INPUT_CAPACITY = 256;
+    // Every finished game is kept here for ReplayPlayer
+    private static final String REPLAY_FILE = "last-game.bjr";
+    // A paused game is kept here until it resumes, so Start picks it up even after a restart
+    private static final String PAUSED_GAME_FILE = "paused-game.bjs";
+    // How long exit waits for a replay still being written
+    private static final long REPLAY_CLOSE_TIMEOUT_MILLIS = 2000;
+    private static final Font MESSAGE_FONT = new Font("Consolas", Font.BOLD, 30);
+    // Debug overlay (F3) with input-to-photon latency
+    private static final Font DEBUG_FONT = new Font("Consolas", Font.PLAIN, 13);
+    private static final int DEBUG_X = 645;
+    private static final int DEBUG_Y = 420;
+    private static final int DEBUG_LINE = 16;
+    private static final int DEBUG_WIDTH = 250;
+    private static final long LATENCY_DUMP_NANOS = 10_000_000_000L;
+    // -Dbejeweled.profile.csv=<file> streams per-phase frame times there
+    private static final String PROFILE_CSV = System.getProperty("bejeweled.profile.csv");
+    // Best-move search behind hints and auto-play, -Dbejeweled.solver.depth and .samples tune it
+    private static final int SOLVER_DEPTH = Integer.getInteger("bejeweled.solver.depth", Solver.DEFAULT_DEPTH);
+    private static final int SOLVER_SAMPLES = Integer.getInteger("bejeweled.solver.samples", Solver.DEFAULT_SAMPLES);
+    // -Dbejeweled.renderer=passive falls back to drawing through getGraphics()
+    private static final boolean ACTIVE_RENDERING =
+            !"passive".equals(System.getProperty("bejeweled.renderer", "active"));
 
     public enum GameState {
         STOPPED, STARTED, PAUSED
@@ -15,31 +53,99 @@ public class Game extends JPanel implements Runnable {
 
     private Thread gameThread;
     private volatile boolean isRunning;
-    private GameState gameState;
-    private Assets assets;
+    // Written by the game thread only, read by ButtonPanel on the EDT
+    private volatile GameState gameState;
+    private Assets assets; // Set once the game thread starts
+    // The composed frame, redrawn where damaged and presented from
+    private final BufferedImage view = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    private boolean firstFramePresented;
     private Board board;
+    private Replay replay; // Null for a game resumed from PAUSED_GAME_FILE
+    // Finished replays are written here in order, so the game thread never waits on disk
+    private final ExecutorService replayWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ReplayWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BoardSnapshot pausedGame = new BoardSnapshot(Board.DEFAULT_SIZE, Board.DEFAULT_GEM_TYPES);
+    private final InputQueue commands = new InputQueue(INPUT_CAPACITY);
     private MouseHandler input;
+    private ButtonPanel buttonPanel;
     private KeyHandler keyInput;
     private GameTimer timer;
     private Leaderboard leaderboard;
     private ScoreManager scoreManager;
     private boolean gameOverHandled = false;
+    private final DamageTracker damage = new DamageTracker(WIDTH, HEIGHT);
+    private GameState drawnState;
+    private final HudLabel startLabel =
+            new HudLabel(MESSAGE_FONT, Color.WHITE, 250, 300, "Press Start or Enter to Begin");
+    private final HudLabel pausedLabel = new HudLabel(MESSAGE_FONT, Color.WHITE, 350, 300, "Game Paused");
+    // Input-to-photon latency of clicks, per dump window
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    private final HudLabel latencyLabel = new HudLabel(DEBUG_FONT, Color.CYAN, DEBUG_X, DEBUG_Y, DEBUG_WIDTH);
+    private boolean showDebug;
+    private long nextLatencyDump = System.nanoTime() + LATENCY_DUMP_NANOS;
+    // Per-phase frame times, overlay toggled with F4
+    private final FrameProfiler profiler =
+            new FrameProfiler(PROFILE_CSV != null ? FrameCsvWriter.start(PROFILE_CSV) : null);
+    // Active rendering: the playfield canvas and its page-flipped back buffers
+    private Canvas canvas;
+    private BufferStrategy strategy;
+    private volatile boolean exposed;
+    // Hints (H) and auto-play (F5) ask the solver; its answer is picked up by a later tick
+    private final Solver solver = new Solver(SOLVER_DEPTH, SOLVER_SAMPLES);
+    private Future<int[]> search;
+    private long searchHash; // Gem layout the running search started from
+    private boolean searchIsHint;
+    private boolean autoPlay;
 
     public Game() {
         setLayout(new BorderLayout());
         setPreferredSize(new Dimension(WIDTH, HEIGHT + BUTTON_PANEL_HEIGHT));
         setFocusable(true);
-        input = new MouseHandler();
+        input = new MouseHandler(commands);
         addMouseListener(input);
         keyInput = new KeyHandler(this);
         addKeyListener(keyInput);
         gameState = GameState.STOPPED;
-        add(new ButtonPanel(this), BorderLayout.SOUTH);
+        if (ACTIVE_RENDERING) {
+            canvas = new Canvas() {
+                // The OS damaged the window, present the whole view again on the next frame
+                @Override
+                public void paint(Graphics g) {
+                    exposed = true;
+                }
+
+                @Override
+                public void update(Graphics g) {
+                    paint(g);
+                }
+            };
+            canvas.setPreferredSize(new Dimension(WIDTH, HEIGHT));
+            canvas.setFocusable(true);
+            canvas.addMouseListener(input);
+            canvas.addKeyListener(keyInput);
+            add(canvas, BorderLayout.CENTER);
+        }
+        buttonPanel = new ButtonPanel(this);
+        add(buttonPanel, BorderLayout.SOUTH);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeReplayWriter, "ReplayClose"));
     }
 
     @Override
     public void addNotify() {
         super.addNotify();
+        if (canvas != null && strategy == null) {
+            try {
+                canvas.createBufferStrategy(BUFFER_COUNT);
+                strategy = canvas.getBufferStrategy();
+            } catch (IllegalStateException e) {
+                System.err.println("Active rendering unavailable, using passive: " + e.getMessage());
+                remove(canvas);
+                canvas = null;
+            }
+        }
         if (gameThread == null) {
             gameThread = new Thread(this, "GameThread");
             isRunning = true;
@@ -48,36 +154,158 @@ public class Game extends JPanel implements Runnable {
     }
 
     public void init() {
-        assets = new Assets();
-        assets.load();
-        board = new Board(assets);
+        board = new Board();
+        board.setProfiler(profiler);
+        replay = new Replay(board.getSeed());
+        board.setReplay(replay);
         timer = new GameTimer();
-        leaderboard = new Leaderboard();
+        if (leaderboard == null) {
+            leaderboard = new Leaderboard();
+        }
         scoreManager = new ScoreManager();
+        search = null; // A search still running for the old board is ignored
+        autoPlay = false;
         gameOverHandled = false;
         gameState = GameState.STOPPED;
+        damage.addAll();
+    }
+
+    // Requests from the EDT, carried out by the game thread on its next tick
+    public void requestStart() {
+        commands.offer(InputQueue.START);
+    }
+
+    public void requestStop() {
+        commands.offer(InputQueue.STOP);
+    }
+
+    public void requestReset() {
+        commands.offer(InputQueue.RESET);
     }
 
-    public void startGame() {
+    public void requestHint() {
+        commands.offer(InputQueue.HINT);
+    }
+
+    public void requestDebugOverlay() {
+        commands.offer(InputQueue.DEBUG);
+    }
+
+    public void requestProfilerOverlay() {
+        commands.offer(InputQueue.PROFILE);
+    }
+
+    public void requestAutoPlay() {
+        commands.offer(InputQueue.AUTO_PLAY);
+    }
+
+    private void startGame() {
         if (gameState == GameState.STOPPED || gameState == GameState.PAUSED) {
             if (gameState == GameState.STOPPED) {
                 init();
+                resumePausedGame();
+            } else {
+                deletePausedGame(); // Play goes on from memory, the saved copy is out of date
             }
             gameState = GameState.STARTED;
             gameOverHandled = false;
-            requestFocus();
+            if (canvas != null) {
+                canvas.requestFocus();
+            } else {
+                requestFocus();
+            }
         }
     }
 
-    public void resetGame() {
+    private void resetGame() {
+        deletePausedGame();
         init();
         gameState = GameState.STOPPED;
         repaint();
     }
 
-    public void stopGame() {
+    private void stopGame() {
         if (gameState == GameState.STARTED) {
             gameState = GameState.PAUSED;
+            savePausedGame();
+        }
+    }
+
+    // Snapshots the board, score and timer and writes them in one small write
+    private void savePausedGame() {
+        board.snapshot(pausedGame);
+        timer.saveTo(pausedGame);
+        pausedGame.setScore(scoreManager.getScore());
+        try {
+            pausedGame.write(Path.of(PAUSED_GAME_FILE));
+        } catch (IOException e) {
+            System.err.println("Error saving paused game: " + e.getMessage());
+        }
+    }
+
+    // Carries on the game in PAUSED_GAME_FILE, if there is one, on the board init() just set up
+    // The swaps before the pause are not in the file, so a resumed game records no replay
+    private void resumePausedGame() {
+        Path path = Path.of(PAUSED_GAME_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            pausedGame.read(path);
+            board.restore(pausedGame);
+            timer.restoreFrom(pausedGame);
+            scoreManager.addScore(pausedGame.getScore());
+            replay = null;
+            board.setReplay(null);
+        } catch (IOException e) {
+            System.err.println("Error resuming paused game: " + e.getMessage());
+        }
+        deletePausedGame();
+    }
+
+    private void deletePausedGame() {
+        try {
+            Files.deleteIfExists(Path.of(PAUSED_GAME_FILE));
+        } catch (IOException e) {
+            System.err.println("Error deleting paused game: " + e.getMessage());
+        }
+    }
+
+    // The hint appears once the solver has found the best move
+    // Only a settled board is searched, a hint for one in motion would be dropped when it arrives
+    private void showHint() {
+        if (gameState == GameState.STARTED && search == null && board.isIdle()) {
+            startSearch(true);
+        }
+    }
+
+    private void startSearch(boolean hint) {
+        searchHash = solver.hash(board);
+        searchIsHint = hint;
+        search = solver.bestMoveAsync(board);
+    }
+
+    // Applies a finished search if the gems have not changed since it started, then starts the next
+    // auto-play search once the board has settled
+    private void updateSearch() {
+        if (search != null && search.isDone()) {
+            int[] move = null;
+            try {
+                move = search.get();
+            } catch (InterruptedException | ExecutionException e) {
+                System.err.println("Best-move search failed: " + e.getMessage());
+            }
+            search = null;
+            if (move != null && board.isIdle() && solver.hash(board) == searchHash) {
+                if (searchIsHint) {
+                    board.showHint(move);
+                } else if (autoPlay) {
+                    board.trySwap(move[0], move[1], move[2], move[3]);
+                }
+            }
+        }
+        if (autoPlay && search == null && board.isIdle()) {
+            startSearch(false);
         }
     }
 
@@ -85,7 +313,48 @@ public class Game extends JPanel implements Runnable {
         return gameState;
     }
 
+    // Applies every queued command; all game state changes happen here on the game thread
+    private void processInput() {
+        while (commands.poll()) {
+            switch (commands.type()) {
+                case InputQueue.CLICK:
+                    if (gameState == GameState.STARTED && !timer.isGameOver()) {
+                        board.handleClick(commands.x(), commands.y(), commands.button(), commands.timestamp());
+                    }
+                    break;
+                case InputQueue.START:
+                    startGame();
+                    break;
+                case InputQueue.STOP:
+                    stopGame();
+                    break;
+                case InputQueue.RESET:
+                    resetGame();
+                    break;
+                case InputQueue.HINT:
+                    showHint();
+                    break;
+                case InputQueue.DEBUG:
+                    showDebug = !showDebug;
+                    damage.add(DEBUG_X, DEBUG_Y - DEBUG_LINE, DEBUG_WIDTH, DEBUG_LINE + 5);
+                    break;
+                case InputQueue.PROFILE:
+                    profiler.toggleVisible();
+                    damage.addAll();
+                    break;
+                case InputQueue.AUTO_PLAY:
+                    autoPlay = !autoPlay && gameState == GameState.STARTED;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     private void update() {
+        long start = profiler.start();
+        processInput();
+        profiler.stop(FrameProfiler.INPUT, start);
         if (gameState != GameState.STARTED || timer.isGameOver()) {
             if (timer.isGameOver() && !gameOverHandled) {
                 handleGameOver();
@@ -94,21 +363,18 @@ public class Game extends JPanel implements Runnable {
             return;
         }
 
-        MouseEvent e = input.getMouseEvent();
-        if (e != null) {
-            board.handleMouseInput(e);
-            input.consumeMouse();
-        }
-
+        updateSearch();
         int matches = board.update();
-        double deltaTime = TARGET_FRAME_TIME / 1000.0;
-        timer.update(deltaTime, matches);
+        start = profiler.start();
+        timer.update(STEP_SECONDS, matches);
+        profiler.stop(FrameProfiler.TIMER_UPDATE, start);
         if (matches > 0) {
             scoreManager.addScore(matches);
         }
     }
 
     private void handleGameOver() {
+        saveReplay();
         String playerName = JOptionPane.showInputDialog(
                 this,
                 "Game Over! Your score: " + scoreManager.getScore() + "\nEnter your name:",
@@ -120,12 +386,13 @@ public class Game extends JPanel implements Runnable {
             playerName = "Anonymous";
         }
 
-        leaderboard.addScore(scoreManager.getScore(), playerName.trim());
+        int rank = leaderboard.addScore(scoreManager.getScore(), playerName.trim());
         gameState = GameState.STOPPED;
 
         int choice = JOptionPane.showConfirmDialog(
                 this,
-                "Would you like to play again?",
+                (rank > 0 ? "You placed #" + rank + " of " + leaderboard.getScoreCount() + ".\n" : "")
+                        + "Would you like to play again?",
                 "Play Again?",
                 JOptionPane.YES_NO_OPTION
         );
@@ -137,55 +404,249 @@ public class Game extends JPanel implements Runnable {
         }
     }
 
+    private void saveReplay() {
+        if (replay == null) {
+            return;
+        }
+        replay.finish(board.getTicks(), scoreManager.getScore(), board.hash());
+        // The board stops recording into it, so the writer has it to itself
+        Replay finished = replay;
+        board.setReplay(null);
+        replayWriter.execute(() -> {
+            try {
+                finished.write(Path.of(REPLAY_FILE));
+            } catch (IOException e) {
+                System.err.println("Error saving replay: " + e.getMessage());
+            }
+        });
+    }
+
+    // Waits a little for a replay still being written, for shutdown
+    private void closeReplayWriter() {
+        replayWriter.shutdown();
+        try {
+            replayWriter.awaitTermination(REPLAY_CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Repaints only the damaged parts of the view and presents just those
     private void draw() {
-        Graphics2D g2 = (Graphics2D) assets.getView().getGraphics();
+        if (gameState != drawnState) {
+            damage.addAll();
+            drawnState = gameState;
+            buttonPanel.repaint();
+        }
+        board.collectDamage(damage);
+        timer.collectDamage(damage);
+        scoreManager.collectDamage(damage);
+        leaderboard.collectDamage(damage);
+        profiler.collectDamage(damage);
+        if (showDebug) {
+            updateLatencyLabel();
+        }
+        if (exposed) {
+            exposed = false;
+            damage.addAll();
+        }
+        if (damage.isEmpty()) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) view.getGraphics();
         try {
-            g2.drawImage(assets.getBackground(), 0, 0, WIDTH, HEIGHT, null);
-            board.draw(g2);
-            timer.draw(g2);
-            scoreManager.draw(g2, timer.isGameOver());
-            leaderboard.draw(g2);
-
-            g2.setColor(Color.WHITE);
-            g2.setFont(new Font("Consolas", Font.BOLD, 30));
-            if (gameState == GameState.STOPPED) {
-                g2.drawString("Press Start or Enter to Begin", 250, 300);
-            } else if (gameState == GameState.PAUSED) {
-                g2.drawString("Game Paused", 350, 300);
+            if (damage.isFull()) {
+                drawLayers(g2, null);
+            } else {
+                for (int i = 0; i < damage.size(); i++) {
+                    Rectangle area = damage.get(i);
+                    g2.setClip(area);
+                    drawLayers(g2, area);
+                }
             }
         } finally {
             g2.dispose();
         }
 
+        long start = profiler.start();
+        if (strategy != null) {
+            presentActive();
+        } else {
+            presentPassive();
+        }
+        profiler.stop(FrameProfiler.PRESENT, start);
+        damage.clear();
+        if (!firstFramePresented) {
+            firstFramePresented = true;
+            StartupTiming.firstFrame();
+        }
+
+        // The frame carrying a click's effect is now on screen
+        long stamp = board.takeInputStamp();
+        if (stamp != 0) {
+            inputLatency.record(System.nanoTime() - stamp);
+        }
+    }
+
+    // Re-renders the latency overlay when its 0.1 ms rounded values change
+    private void updateLatencyLabel() {
+        long p50 = tenthsOfMillis(inputLatency.percentile(0.50));
+        long p99 = tenthsOfMillis(inputLatency.percentile(0.99));
+        long max = tenthsOfMillis(inputLatency.getMax());
+        long key = (p50 * 100_000 + p99) * 100_000 + max;
+        if (latencyLabel.isStale(key)) {
+            latencyLabel.render(key, String.format("Input p50 %.1f p99 %.1f max %.1f ms",
+                    p50 / 10.0, p99 / 10.0, max / 10.0));
+            damage.add(DEBUG_X, DEBUG_Y - DEBUG_LINE, DEBUG_WIDTH, DEBUG_LINE + 5);
+        }
+    }
+
+    private static long tenthsOfMillis(long nanos) {
+        return Math.min(nanos / 100_000, 99_999);
+    }
+
+    // Prints and restarts the latency window every LATENCY_DUMP_NANOS
+    private void dumpLatency(long now) {
+        if (now - nextLatencyDump < 0) return;
+        nextLatencyDump = now + LATENCY_DUMP_NANOS;
+        if (inputLatency.getCount() == 0) return;
+        System.out.printf("Input latency: n=%d p50=%.2fms p99=%.2fms max=%.2fms%n", inputLatency.getCount(),
+                inputLatency.percentile(0.50) / 1e6, inputLatency.percentile(0.99) / 1e6, inputLatency.getMax() / 1e6);
+        inputLatency.reset();
+    }
+
+    // Copies the view into the next back buffer and flips; back buffers are not preserved, so the copy is whole
+    private void presentActive() {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.drawImage(view, 0, 0, null);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    // Blits the damaged rectangles straight onto the panel
+    private void presentPassive() {
         Graphics g = getGraphics();
         if (g != null) {
             try {
-                g.drawImage(assets.getView(), 0, 0, WIDTH, HEIGHT, null);
+                if (damage.isFull()) {
+                    g.drawImage(view, 0, 0, WIDTH, HEIGHT, null);
+                } else {
+                    for (int i = 0; i < damage.size(); i++) {
+                        Rectangle r = damage.get(i);
+                        g.drawImage(view, r.x, r.y, r.x + r.width, r.y + r.height,
+                                r.x, r.y, r.x + r.width, r.y + r.height, null);
+                    }
+                }
             } finally {
                 g.dispose();
             }
         }
     }
 
+    // Draws every layer, clipped to area when one is given
+    private void drawLayers(Graphics2D g2, Rectangle area) {
+        long start = profiler.start();
+        if (area == null) {
+            g2.drawImage(assets.getBackground(), 0, 0, null);
+        } else {
+            int x2 = area.x + area.width, y2 = area.y + area.height;
+            g2.drawImage(assets.getBackground(), area.x, area.y, x2, y2, area.x, area.y, x2, y2, null);
+        }
+        profiler.stop(FrameProfiler.DRAW_BACKGROUND, start);
+        start = profiler.start();
+        board.draw(g2, assets, area);
+        profiler.stop(FrameProfiler.DRAW_BOARD, start);
+        start = profiler.start();
+        timer.draw(g2);
+        profiler.stop(FrameProfiler.DRAW_TIMER, start);
+        start = profiler.start();
+        scoreManager.draw(g2, timer.isGameOver());
+        profiler.stop(FrameProfiler.DRAW_SCORE, start);
+        start = profiler.start();
+        leaderboard.draw(g2);
+        profiler.stop(FrameProfiler.DRAW_LEADERBOARD, start);
+
+        if (gameState == GameState.STOPPED) {
+            startLabel.draw(g2);
+        } else if (gameState == GameState.PAUSED) {
+            pausedLabel.draw(g2);
+        }
+        if (showDebug) {
+            latencyLabel.draw(g2);
+        }
+        profiler.draw(g2);
+    }
+
+    // Swing repaints (expose, resize) get the last complete view
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        g.drawImage(view, 0, 0, WIDTH, HEIGHT, null);
+    }
+
+    // Fixed-step simulation driven by real time, rendering at the display rate in between
+    // Time spent paused, stopped or in a dialog is never fed to the timer
     @Override
     public void run() {
+        assets = Assets.get();
         init();
-        long lastTime = System.nanoTime();
+        long renderInterval = 1_000_000_000L / getRefreshRate();
+        long previous = System.nanoTime();
+        long nextRender = previous;
+        long accumulator = 0;
         while (isRunning) {
-            long currentTime = System.nanoTime();
-            long elapsedTime = (currentTime - lastTime) / 1_000_000;
+            profiler.beginFrame();
+            GameEvents.FrameEvent frameEvent = GameEvents.beginFrame();
+            long now = System.nanoTime();
+            accumulator += Math.min(now - previous, MAX_CATCH_UP_NANOS);
+            previous = now;
 
-            if (elapsedTime >= TARGET_FRAME_TIME) {
+            int steps = 0;
+            while (accumulator >= STEP_NANOS) {
+                GameState state = gameState;
+                Board stepped = board;
                 update();
-                draw();
-                lastTime = currentTime - (elapsedTime % TARGET_FRAME_TIME);
+                accumulator -= STEP_NANOS;
+                steps++;
+                // A new state or game starts the clock afresh, so time spent in the game over dialog
+                // or owed to the old game never runs on the new one
+                if (gameState != state || board != stepped) {
+                    accumulator = 0;
+                    previous = System.nanoTime();
+                    nextRender = previous;
+                    break;
+                }
             }
+            long updated = System.nanoTime();
+            // Draw pieces part way from the previous step towards the current one
+            boolean animating = gameState == GameState.STARTED && !timer.isGameOver();
+            board.setRenderAlpha(animating ? (double) accumulator / STEP_NANOS : 1.0);
+            draw();
+            profiler.endFrame();
+            if (frameEvent != null) {
+                long drawn = System.nanoTime();
+                GameEvents.endFrame(frameEvent, steps, updated - now, drawn - updated);
+            }
+            dumpLatency(System.nanoTime());
 
+            nextRender += renderInterval;
+            long sleepNanos = nextRender - System.nanoTime();
+            if (sleepNanos <= 0) {
+                // Fell behind, do not try to render the missed frames
+                nextRender = System.nanoTime();
+                continue;
+            }
             try {
-                long sleepTime = TARGET_FRAME_TIME - elapsedTime;
-                if (sleepTime > 0) {
-                    Thread.sleep(sleepTime);
-                }
+                Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt(); // Restore interrupted status
                 isRunning = false;
@@ -193,6 +654,18 @@ public class Game extends JPanel implements Runnable {
         }
     }
 
+    // Refresh rate of the screen showing the game, 60 Hz when unknown
+    private int getRefreshRate() {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config != null) {
+            int rate = config.getDevice().getDisplayMode().getRefreshRate();
+            if (rate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return rate;
+            }
+        }
+        return TARGET_FPS;
+    }
+
     public void stop() {
         isRunning = false;
         try {
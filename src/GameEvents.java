@@ -0,0 +1,163 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Java Flight Recorder events for correlating frame spikes with GC and safepoints in JMC
+// Each helper checks a probe event first, so with recording off a call is one flag test and allocates nothing
+public final class GameEvents {
+    private static final String CATEGORY = "Bejeweled";
+
+    @Name("bejeweled.Frame")
+    @Label("Frame")
+    @Description("One pass of the game loop: the update steps it ran and the draw")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class FrameEvent extends Event {
+        @Label("Update Steps")
+        int steps;
+
+        @Label("Update Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long updateNanos;
+
+        @Label("Render Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long renderNanos;
+    }
+
+    @Name("bejeweled.Swap")
+    @Label("Swap Attempt")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class SwapEvent extends Event {
+        @Label("Row 1")
+        int row1;
+
+        @Label("Column 1")
+        int col1;
+
+        @Label("Row 2")
+        int row2;
+
+        @Label("Column 2")
+        int col2;
+
+        @Label("Accepted")
+        boolean accepted;
+    }
+
+    @Name("bejeweled.Match")
+    @Label("Match Group")
+    @Description("A run of gems removed from the board")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class MatchEvent extends Event {
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+
+        @Label("Length")
+        int length;
+
+        @Label("Horizontal")
+        boolean horizontal;
+    }
+
+    @Name("bejeweled.Cascade")
+    @Label("Cascade")
+    @Description("Rounds of matches from one swap until the board settled")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class CascadeEvent extends Event {
+        @Label("Depth")
+        int depth;
+    }
+
+    @Name("bejeweled.LeaderboardSave")
+    @Label("Leaderboard Save")
+    @Category(CATEGORY)
+    public static final class LeaderboardSaveEvent extends Event {
+        @Label("Entries")
+        int entries;
+    }
+
+    // Never committed, only asked whether their event type is being recorded
+    private static final FrameEvent FRAME_PROBE = new FrameEvent();
+    private static final SwapEvent SWAP_PROBE = new SwapEvent();
+    private static final MatchEvent MATCH_PROBE = new MatchEvent();
+    private static final CascadeEvent CASCADE_PROBE = new CascadeEvent();
+    private static final LeaderboardSaveEvent SAVE_PROBE = new LeaderboardSaveEvent();
+
+    private GameEvents() {
+    }
+
+    // Started frame event, or null when frames are not recorded
+    public static FrameEvent beginFrame() {
+        if (!FRAME_PROBE.isEnabled()) return null;
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endFrame(FrameEvent event, int steps, long updateNanos, long renderNanos) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.steps = steps;
+            event.updateNanos = updateNanos;
+            event.renderNanos = renderNanos;
+            event.commit();
+        }
+    }
+
+    public static void swap(int row1, int col1, int row2, int col2, boolean accepted) {
+        if (!SWAP_PROBE.isEnabled()) return;
+        SwapEvent event = new SwapEvent();
+        event.row1 = row1;
+        event.col1 = col1;
+        event.row2 = row2;
+        event.col2 = col2;
+        event.accepted = accepted;
+        event.commit();
+    }
+
+    public static boolean isMatchEnabled() {
+        return MATCH_PROBE.isEnabled();
+    }
+
+    public static void match(int row, int col, int length, boolean horizontal) {
+        MatchEvent event = new MatchEvent();
+        event.row = row;
+        event.col = col;
+        event.length = length;
+        event.horizontal = horizontal;
+        event.commit();
+    }
+
+    public static void cascade(int depth) {
+        if (!CASCADE_PROBE.isEnabled()) return;
+        CascadeEvent event = new CascadeEvent();
+        event.depth = depth;
+        event.commit();
+    }
+
+    // Started save event, or null when saves are not recorded
+    public static LeaderboardSaveEvent beginSave() {
+        if (!SAVE_PROBE.isEnabled()) return null;
+        LeaderboardSaveEvent event = new LeaderboardSaveEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endSave(LeaderboardSaveEvent event, int entries) {
+        if (event == null) return;
+        event.entries = entries;
+        event.commit();
+    }
+}
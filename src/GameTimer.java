@@ -9,6 +9,20 @@ public class GameTimer {
     private static final int BAR_HEIGHT = 15;
     private static final int BAR_X = 85;
     private static final int BAR_Y = 493;
+    private static final int TEXT_X = 645;
+    private static final int TEXT_Y = 330;
+    private static final int MESSAGE_X = 350;
+    private static final int MESSAGE_Y = 300;
+    private static final Font TIME_FONT = new Font("Consolas", Font.BOLD, 15);
+    private static final Font MESSAGE_FONT = new Font("Consolas", Font.BOLD, 40);
+    // Bar colour for every possible filled width
+    private static final Color[] BAR_COLORS = new Color[BAR_WIDTH + 1];
+
+    static {
+        for (int width = 0; width <= BAR_WIDTH; width++) {
+            BAR_COLORS[width] = getBarColor((double) width / BAR_WIDTH);
+        }
+    }
 
     private double timeRemaining;
     private double baseSpeed;
@@ -16,6 +30,14 @@ public class GameTimer {
     private double lastSpeedUpTime;
     private boolean isGameOver;
 
+    // Last values put on screen, see collectDamage()
+    private int drawnBarWidth = -1;
+    private long drawnTenths = -1;
+    private boolean drawnGameOver;
+    // Created on first draw, headless games never need them
+    private HudLabel timeLabel;
+    private HudLabel gameOverLabel;
+
     public GameTimer() {
         this.timeRemaining = INITIAL_TIME;
         this.baseSpeed = 1.0;
@@ -44,7 +66,7 @@ public class GameTimer {
         }
     }
 
-    private Color getBarColor(double timeRatio) {
+    private static Color getBarColor(double timeRatio) {
         if (timeRatio > 1.0) return Color.BLUE;
         if (timeRatio > 0.3) {
             // Interpolate between GREEN and ORANGE
@@ -57,27 +79,56 @@ public class GameTimer {
         return Color.ORANGE;
     }
 
+    // Time shown on the HUD, in tenths of a second
+    private long getTenths() {
+        return Math.round(timeRemaining * 10);
+    }
+
+    private int getFilledWidth() {
+        return (int) (BAR_WIDTH * Math.min(timeRemaining / INITIAL_TIME, 1.0));
+    }
+
+    // Marks the bar, the time text and the game over message when their drawn values change
+    public void collectDamage(DamageTracker damage) {
+        int filledWidth = getFilledWidth();
+        if (filledWidth != drawnBarWidth) {
+            damage.add(BAR_X, BAR_Y, BAR_WIDTH + 1, BAR_HEIGHT + 1);
+            drawnBarWidth = filledWidth;
+        }
+        long tenths = getTenths();
+        if (tenths != drawnTenths) {
+            damage.add(TEXT_X, TEXT_Y - 15, 200, 20);
+            drawnTenths = tenths;
+        }
+        if (isGameOver != drawnGameOver) {
+            damage.add(MESSAGE_X - 5, MESSAGE_Y - 40, 260, 50);
+            drawnGameOver = isGameOver;
+        }
+    }
+
     public void draw(Graphics2D g2) {
+        if (timeLabel == null) {
+            timeLabel = new HudLabel(TIME_FONT, Color.GREEN, TEXT_X, TEXT_Y, 200);
+            gameOverLabel = new HudLabel(MESSAGE_FONT, Color.RED, MESSAGE_X, MESSAGE_Y, "Game Over");
+        }
+
         g2.setColor(Color.GRAY);
         g2.fillRect(BAR_X, BAR_Y, BAR_WIDTH, BAR_HEIGHT);
 
-        double timeRatio = Math.min(timeRemaining / INITIAL_TIME, 1.0);
-        int filledWidth = (int) (BAR_WIDTH * timeRatio);
-
-        g2.setColor(getBarColor(timeRatio));
+        int filledWidth = getFilledWidth();
+        g2.setColor(BAR_COLORS[filledWidth]);
         g2.fillRect(BAR_X, BAR_Y, filledWidth, BAR_HEIGHT);
         g2.setColor(Color.BLACK);
         g2.drawRect(BAR_X, BAR_Y, BAR_WIDTH, BAR_HEIGHT);
 
-        g2.setColor(Color.GREEN);
-        g2.setFont(new java.awt.Font("Consolas", java.awt.Font.BOLD, 15));
-        String timeText = String.format("Time: %.1fs", timeRemaining);
-        g2.drawString(timeText, 645, 330);
+        long tenths = getTenths();
+        if (timeLabel.isStale(tenths)) {
+            timeLabel.render(tenths, "Time: " + tenths / 10 + "." + tenths % 10 + "s");
+        }
+        timeLabel.draw(g2);
 
         if (isGameOver) {
-            g2.setColor(Color.RED);
-            g2.setFont(new java.awt.Font("Consolas", java.awt.Font.BOLD, 40));
-            g2.drawString("Game Over", 350, 300);
+            gameOverLabel.draw(g2);
         }
     }
 
@@ -85,6 +136,20 @@ public class GameTimer {
     public double getTimeRemaining() { return timeRemaining; }
     public double getCurrentSpeed() { return currentSpeed; }
 
+    // The timer goes into a paused game's snapshot and comes back out when it resumes
+    public void saveTo(BoardSnapshot s) {
+        s.timeRemaining = timeRemaining;
+        s.currentSpeed = currentSpeed;
+        s.lastSpeedUpTime = lastSpeedUpTime;
+    }
+
+    public void restoreFrom(BoardSnapshot s) {
+        timeRemaining = s.timeRemaining;
+        currentSpeed = s.currentSpeed;
+        lastSpeedUpTime = s.lastSpeedUpTime;
+        isGameOver = timeRemaining <= 0;
+    }
+
     public void reset() {
         this.timeRemaining = INITIAL_TIME;
         this.currentSpeed = baseSpeed;
@@ -0,0 +1,78 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+// One line of HUD text pre-rendered into a cached image, re-rendered only when its value changes
+// The font, colour and image are created once, drawing the label allocates nothing
+public class HudLabel {
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final Font font;
+    private final Color color;
+    private final int x;
+    private final int y; // Baseline, as for drawString
+    private final BufferedImage image;
+    private final int ascent;
+    private long value = NO_VALUE;
+    private boolean empty = true;
+
+    // maxWidth is the widest text the label will hold, longer text is cut off
+    public HudLabel(Font font, Color color, int x, int y, int maxWidth) {
+        this.font = font;
+        this.color = color;
+        this.x = x;
+        this.y = y;
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = probe.createGraphics();
+        FontMetrics metrics = g2.getFontMetrics(font);
+        g2.dispose();
+        this.ascent = metrics.getAscent();
+        this.image = new BufferedImage(maxWidth, ascent + metrics.getDescent(), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // Label with fixed text
+    public HudLabel(Font font, Color color, int x, int y, String text) {
+        this(font, color, x, y, widthOf(font, text));
+        render(0, text);
+    }
+
+    private static int widthOf(Font font, String text) {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = probe.createGraphics();
+        try {
+            return Math.max(1, g2.getFontMetrics(font).stringWidth(text));
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    // Whether the label was last rendered for a different value; callers format text only then
+    public boolean isStale(long value) {
+        return value != this.value;
+    }
+
+    public void render(long value, String text) {
+        this.value = value;
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g2.setComposite(AlphaComposite.SrcOver);
+            g2.setFont(font);
+            g2.setColor(color);
+            g2.drawString(text, 0, ascent);
+        } finally {
+            g2.dispose();
+        }
+        empty = text.isEmpty();
+    }
+
+    public void draw(Graphics2D g2) {
+        if (!empty) {
+            g2.drawImage(image, x, y - ascent, null);
+        }
+    }
+}
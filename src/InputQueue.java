@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free queue of input commands from any thread to the game thread, packed into primitives
+public class InputQueue {
+    public static final int CLICK = 1;
+    public static final int START = 2;
+    public static final int STOP = 3;
+    public static final int RESET = 4;
+    public static final int HINT = 5;
+    public static final int DEBUG = 6;
+    public static final int PROFILE = 7;
+    public static final int AUTO_PLAY = 8;
+
+    private final int mask;
+    private final long[] words;
+    private final long[] stamps;
+    // Slot i holds a command for position p when its sequence is p + 1, and is free for p when it is p
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long head; // Consumer only
+
+    // Last polled command, consumer only
+    private int type;
+    private int x;
+    private int y;
+    private int button;
+    private long timestamp;
+
+    // capacity must be a power of two
+    public InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.words = new long[capacity];
+        this.stamps = new long[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(int type) {
+        return offer(type, 0, 0, 0, System.nanoTime());
+    }
+
+    // Adds a command; returns false and counts a drop only if the game thread is a full buffer behind
+    public boolean offer(int type, int x, int y, int button, long timestamp) {
+        long pos;
+        while (true) {
+            pos = tail.get();
+            long gap = sequences.get((int) (pos & mask)) - pos;
+            if (gap == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+            } else if (gap < 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            // Another producer took this slot first, try the next one
+        }
+        int slot = (int) (pos & mask);
+        words[slot] = (long) (type & 0xFF) << 56 | (long) (button & 0xFF) << 48
+                | (long) (x & 0xFFFFFF) << 24 | (y & 0xFFFFFF);
+        stamps[slot] = timestamp;
+        sequences.lazySet(slot, pos + 1); // Publishes the payload written above
+        return true;
+    }
+
+    // Takes the oldest command into type(), x(), y(), button() and timestamp(); false if empty
+    public boolean poll() {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) {
+            return false;
+        }
+        long word = words[slot];
+        type = (int) (word >>> 56);
+        button = (int) (word >>> 48) & 0xFF;
+        x = (int) (word >>> 24) << 8 >> 8; // Sign-extend the 24-bit fields
+        y = (int) word << 8 >> 8;
+        timestamp = stamps[slot];
+        sequences.lazySet(slot, head + mask + 1); // Hands the slot back to producers
+        head++;
+        return true;
+    }
+
+    public int type() { return type; }
+    public int x() { return x; }
+    public int y() { return y; }
+    public int button() { return button; }
+    public long timestamp() { return timestamp; }
+    public long getDropped() { return dropped.get(); }
+}
@@ -15,7 +15,15 @@ public class KeyHandler implements KeyListener {
     @Override
     public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-            game.startGame();
+            game.requestStart();
+        } else if (e.getKeyCode() == KeyEvent.VK_H) {
+            game.requestHint();
+        } else if (e.getKeyCode() == KeyEvent.VK_F3) {
+            game.requestDebugOverlay();
+        } else if (e.getKeyCode() == KeyEvent.VK_F4) {
+            game.requestProfilerOverlay();
+        } else if (e.getKeyCode() == KeyEvent.VK_F5) {
+            game.requestAutoPlay();
         }
     }
 
@@ -1,15 +1,27 @@
 import java.awt.Graphics2D;
 import java.awt.Color;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.awt.Font;
 import java.util.List;
 
+// Top scores table drawn from a ScoreStore of every score posted; LeaderboardLog persists it,
+// so adding a score never waits on disk
 public class Leaderboard {
     private static final int MAX_SCORES = 5;
-    private static final String LEADERBOARD_FILE = "leaderboard.txt";
+    // -Dbejeweled.leaderboard.server=host:port shares one board through a LeaderboardServer
+    private static final String SERVER = System.getProperty("bejeweled.leaderboard.server");
+
+    private static final int TEXT_X = 645;
+    private static final int TITLE_Y = 50;
+    private static final int FIRST_ROW_Y = 80;
+    private static final int ROW_HEIGHT = 25;
+    private static final Font FONT = new Font("Arial", Font.BOLD, 15);
 
     private List<ScoreEntry> scores;
+    private int version;
+    private int drawnVersion = -1;
+    // Created on first draw
+    private HudLabel titleLabel;
+    private HudLabel[] rowLabels;
 
     public static class ScoreEntry implements Comparable<ScoreEntry> {
         public final String name;
@@ -25,75 +37,119 @@ public class Leaderboard {
             return Integer.compare(other.score, this.score); // Descending order
         }
 
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ScoreEntry other && score == other.score && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + score;
+        }
+
         @Override
         public String toString() {
             return name + "," + score;
         }
 
+        // The score follows the last comma, so names may contain commas
         public static ScoreEntry fromString(String line) {
-            String[] parts = line.split(",");
-            if (parts.length == 2) {
-                try {
-                    return new ScoreEntry(parts[0], Integer.parseInt(parts[1]));
-                } catch (NumberFormatException e) {
-                    return null;
-                }
+            int comma = line.lastIndexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            try {
+                return new ScoreEntry(line.substring(0, comma), Integer.parseInt(line.substring(comma + 1).trim()));
+            } catch (NumberFormatException e) {
+                return null;
             }
-            return null;
         }
     }
 
+    // Exactly one of store (local file) and client (server) is set
+    private final LeaderboardLog log;
+    private final ScoreStore store;
+    private final LeaderboardClient client;
+    private int clientVersion;
+
     public Leaderboard() {
-        scores = new ArrayList<>();
-        loadScores();
+        if (SERVER != null) {
+            log = null;
+            store = null;
+            client = LeaderboardClient.get(SERVER, MAX_SCORES);
+            clientVersion = client.getVersion();
+            scores = client.getTop();
+        } else {
+            log = LeaderboardLog.get();
+            store = log.getStore();
+            client = null;
+            scores = store.top(0, MAX_SCORES);
+        }
     }
 
-    public void addScore(int score, String playerName) {
-        scores.add(new ScoreEntry(playerName, score));
-        Collections.sort(scores);
-        if (scores.size() > MAX_SCORES) {
-            scores = scores.subList(0, MAX_SCORES);
+    // Returns the 1-based rank the score took among all scores posted, or 0 while the server has not answered
+    public int addScore(int score, String playerName) {
+        if (client != null) {
+            client.submit(new ScoreEntry(playerName, score));
+            return 0;
         }
-        saveScores();
+        int rank = log.add(new ScoreEntry(playerName, score));
+        scores = store.top(0, MAX_SCORES);
+        version++;
+        return rank;
     }
 
-    private void loadScores() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(LEADERBOARD_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                ScoreEntry entry = ScoreEntry.fromString(line);
-                if (entry != null) {
-                    scores.add(entry);
-                }
-            }
-            Collections.sort(scores);
-        } catch (IOException e) {
-            // File doesn't exist or can't be read, start with empty leaderboard
-            System.out.println("No existing leaderboard found, starting fresh.");
+    public int getScoreCount() {
+        return client != null ? client.getTotal() : store.size();
+    }
+
+    // The player's best score, or null if they never posted one; local boards only
+    public ScoreEntry getPersonalBest(String playerName) {
+        return store != null ? store.best(playerName) : null;
+    }
+
+    // One page of the full ranking, best first; from a server only the top scores are at hand
+    public List<ScoreEntry> getPage(int offset, int limit) {
+        if (store != null) {
+            return store.top(offset, limit);
         }
+        List<ScoreEntry> top = client.getTop();
+        return top.subList(Math.min(offset, top.size()), Math.min(offset + limit, top.size()));
     }
 
-    private void saveScores() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(LEADERBOARD_FILE))) {
-            for (ScoreEntry entry : scores) {
-                writer.println(entry.toString());
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving leaderboard: " + e.getMessage());
+    // Marks the table when a score was added since it was last drawn
+    public void collectDamage(DamageTracker damage) {
+        if (client != null && client.getVersion() != clientVersion) {
+            clientVersion = client.getVersion();
+            scores = client.getTop();
+            version++;
+        }
+        if (version != drawnVersion) {
+            damage.add(TEXT_X - 5, TITLE_Y - 20, 260, FIRST_ROW_Y - TITLE_Y + MAX_SCORES * ROW_HEIGHT + 10);
+            drawnVersion = version;
         }
     }
 
     public void draw(Graphics2D g2) {
-        g2.setColor(Color.WHITE);
-        g2.setFont(new java.awt.Font("Arial", java.awt.Font.BOLD, 15));
-        g2.drawString("Leaderboard", 645, 50);
-
-        int y = 80;
-        for (int i = 0; i < scores.size(); i++) {
-            ScoreEntry entry = scores.get(i);
-            String text = String.format("%d. %s - %d", i + 1, entry.name, entry.score);
-            g2.drawString(text, 645, y);
-            y += 25;
+        if (titleLabel == null) {
+            titleLabel = new HudLabel(FONT, Color.WHITE, TEXT_X, TITLE_Y, "Leaderboard");
+            rowLabels = new HudLabel[MAX_SCORES];
+            for (int i = 0; i < MAX_SCORES; i++) {
+                rowLabels[i] = new HudLabel(FONT, Color.WHITE, TEXT_X, FIRST_ROW_Y + i * ROW_HEIGHT, 255);
+            }
+        }
+        titleLabel.draw(g2);
+
+        for (int i = 0; i < MAX_SCORES; i++) {
+            if (rowLabels[i].isStale(version)) {
+                String text = "";
+                if (i < scores.size()) {
+                    ScoreEntry entry = scores.get(i);
+                    text = String.format("%d. %s - %d", i + 1, entry.name, entry.score);
+                }
+                rowLabels[i].render(version, text);
+            }
+            rowLabels[i].draw(g2);
         }
     }
 
@@ -0,0 +1,153 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Talks to a LeaderboardServer from a background thread, one per process
+// Scores are queued and sent in batches; the top scores are fetched after each batch and every
+// REFRESH_MILLIS, and published for the game thread to pick up. Unsent scores are kept across reconnects
+public class LeaderboardClient implements Runnable {
+    private static final long REFRESH_MILLIS = 5000;
+    private static final long RETRY_MILLIS = 2000;
+    private static final int TIMEOUT_MILLIS = 2000;
+
+    private static LeaderboardClient instance;
+
+    private final String host;
+    private final int port;
+    private final int topSize;
+    private final BlockingQueue<Leaderboard.ScoreEntry> pending = new LinkedBlockingQueue<>();
+    // Written by the client thread, read by the game thread
+    private volatile List<Leaderboard.ScoreEntry> top = List.of();
+    private volatile int total;
+    private volatile int version;
+    // Client thread only
+    private final List<Leaderboard.ScoreEntry> unsent = new ArrayList<>();
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    private LeaderboardClient(String host, int port, int topSize) {
+        this.host = host;
+        this.port = port;
+        this.topSize = topSize;
+    }
+
+    // The process-wide client for address, "host:port" or "host", started on first use
+    public static synchronized LeaderboardClient get(String address, int topSize) {
+        if (instance == null) {
+            int colon = address.lastIndexOf(':');
+            String host = colon < 0 ? address : address.substring(0, colon);
+            int port = colon < 0 ? LeaderboardServer.DEFAULT_PORT : Integer.parseInt(address.substring(colon + 1));
+            instance = new LeaderboardClient(host, port, topSize);
+            Thread thread = new Thread(instance, "LeaderboardClient");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return instance;
+    }
+
+    // Never blocks; the score goes out with the next batch
+    public void submit(Leaderboard.ScoreEntry entry) {
+        pending.add(entry);
+    }
+
+    // Latest top scores, best first, and a counter that changes whenever they are replaced
+    public List<Leaderboard.ScoreEntry> getTop() { return top; }
+    public int getTotal() { return total; }
+    public int getVersion() { return version; }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Leaderboard.ScoreEntry first = pending.poll(REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    unsent.add(first);
+                }
+                pending.drainTo(unsent);
+                if (socket == null) {
+                    connect();
+                }
+                while (!unsent.isEmpty()) {
+                    sendBatch();
+                }
+                fetchTop();
+            } catch (IOException e) {
+                System.err.println("Leaderboard server unavailable: " + e.getMessage());
+                disconnect();
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already broken
+            }
+            socket = null;
+        }
+    }
+
+    // Sends up to MAX_BATCH unsent scores; they are dropped from unsent only once the server answered
+    private void sendBatch() throws IOException {
+        int n = Math.min(unsent.size(), LeaderboardServer.MAX_BATCH);
+        out.writeByte(LeaderboardServer.SUBMIT);
+        out.writeInt(n);
+        for (int i = 0; i < n; i++) {
+            Leaderboard.ScoreEntry entry = unsent.get(i);
+            out.writeUTF(entry.name.length() > LeaderboardServer.MAX_NAME_LENGTH
+                    ? entry.name.substring(0, LeaderboardServer.MAX_NAME_LENGTH) : entry.name);
+            out.writeInt(entry.score);
+        }
+        out.flush();
+        int answered = in.readInt();
+        for (int i = 0; i < answered; i++) {
+            in.readInt(); // Rank, not shown for remote scores
+        }
+        unsent.subList(0, n).clear();
+    }
+
+    private void fetchTop() throws IOException {
+        out.writeByte(LeaderboardServer.TOP);
+        out.writeInt(0);
+        out.writeInt(topSize);
+        out.flush();
+        int count = in.readInt();
+        int n = in.readInt();
+        List<Leaderboard.ScoreEntry> entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String name = in.readUTF();
+            entries.add(new Leaderboard.ScoreEntry(name, in.readInt()));
+        }
+        if (!entries.equals(top) || count != total) {
+            top = entries;
+            total = count;
+            version++;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Measures leaderboard server throughput: clients on virtual threads each submit batches and wait for the ranks
+// Usage: java LeaderboardLoadTest [clients] [seconds] [batch] [host:port]
+// Without an address an in-memory server is started in this process on a free loopback port
+public class LeaderboardLoadTest {
+    private static final int PLAYERS = 100_000;
+    private static final int MAX_SCORE = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        LeaderboardServer local = null;
+        String host = "localhost";
+        int port;
+        if (args.length > 3) {
+            int colon = args[3].lastIndexOf(':');
+            host = args[3].substring(0, colon);
+            port = Integer.parseInt(args[3].substring(colon + 1));
+        } else {
+            local = new LeaderboardServer(0, false);
+            port = local.getPort();
+            Thread.ofVirtual().start(local);
+        }
+
+        LongAdder submitted = new LongAdder();
+        LatencyHistogram latency = new LatencyHistogram();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        String target = host;
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            threads[c] = Thread.ofVirtual().start(() -> {
+                LatencyHistogram mine = run(target, port, batch, seed, deadline, submitted);
+                synchronized (latency) {
+                    latency.add(mine);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        if (local != null) {
+            local.close();
+        }
+
+        System.out.printf("%d clients, batches of %d for %.1fs%n", clients, batch, elapsed);
+        System.out.printf("Throughput: %.0f submissions/s%n", submitted.sum() / elapsed);
+        System.out.printf("Batch round trip: p50 %.2fms p99 %.2fms max %.2fms%n", latency.percentile(0.50) / 1e6,
+                latency.percentile(0.99) / 1e6, latency.getMax() / 1e6);
+    }
+
+    // One client connection submitting until deadline, returns its batch round-trip times
+    private static LatencyHistogram run(String host, int port, int batch, long seed, long deadline,
+                                        LongAdder submitted) {
+        LatencyHistogram latency = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (System.nanoTime() - deadline < 0) {
+                long sent = System.nanoTime();
+                out.writeByte(LeaderboardServer.SUBMIT);
+                out.writeInt(batch);
+                for (int i = 0; i < batch; i++) {
+                    out.writeUTF("player" + random.nextInt(PLAYERS));
+                    out.writeInt(random.nextInt(MAX_SCORE));
+                }
+                out.flush();
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    in.readInt();
+                }
+                latency.record(System.nanoTime() - sent);
+                submitted.add(n);
+            }
+        } catch (IOException e) {
+            System.err.println("Load test client failed: " + e.getMessage());
+        }
+        return latency;
+    }
+}
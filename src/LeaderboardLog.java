@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+// Crash-safe leaderboard.dat of every score posted, appended by a background writer so callers never wait on disk
+public class LeaderboardLog implements Runnable {
+    private static final Path DATA_FILE = Path.of("leaderboard.dat");
+    private static final Path TEMP_FILE = Path.of("leaderboard.dat.tmp");
+    // The old top five, one "name,score" line each, read only when leaderboard.dat does not exist yet
+    private static final Path LEGACY_FILE = Path.of("leaderboard.txt");
+
+    private static final int MAGIC = 0x424A4C42; // "BJLB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16; // Magic, version, record size, reserved
+    // Record: score, name length, UTF-8 name padded with zeros, CRC32 of everything before it
+    private static final int RECORD_SIZE = 64;
+    private static final int NAME_BYTES = RECORD_SIZE - 4 - 1 - 4;
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final int MAX_RECORDS = Integer.MAX_VALUE - 8; // Largest array the store can grow to
+    private static final int READ_BATCH = 1024; // Records read per channel call at startup
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+    // A record that still fails after this many tries, with a growing pause between them, is dropped
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    // Queued by close() to stop the writer once everything before it is on disk
+    private static final Leaderboard.ScoreEntry CLOSE = new Leaderboard.ScoreEntry("", 0);
+
+    private static LeaderboardLog instance;
+
+    private final ScoreStore store = new ScoreStore();
+    private final BlockingQueue<Leaderboard.ScoreEntry> pending = new LinkedBlockingQueue<>();
+    // Set by load(), then writer thread only: scores already on disk, whether the file needs rewriting,
+    // and where the last complete record ends, so a torn append can be cut off before the next one
+    private int loaded;
+    private boolean rewrite;
+    private long end;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private Thread writer;
+
+    private LeaderboardLog() {
+    }
+
+    // The process-wide log, loading the file and starting the writer on first use
+    public static synchronized LeaderboardLog get() {
+        if (instance == null) {
+            instance = new LeaderboardLog();
+            instance.load();
+            instance.start();
+        }
+        return instance;
+    }
+
+    public ScoreStore getStore() {
+        return store;
+    }
+
+    // Ranks the score at once and returns its 1-based position; it reaches the disk shortly after
+    public int add(Leaderboard.ScoreEntry entry) {
+        int rank = store.add(entry.name, entry.score);
+        persist(entry);
+        return rank;
+    }
+
+    // Queues the score for disk without adding it to getStore(), for callers that rank scores themselves
+    public void persist(Leaderboard.ScoreEntry entry) {
+        pending.add(entry);
+    }
+
+    private void load() {
+        try (FileChannel channel = FileChannel.open(DATA_FILE, StandardOpenOption.READ)) {
+            long length = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(8) != RECORD_SIZE) {
+                throw new IOException("not a leaderboard file");
+            }
+            // The store is array backed; refuse rather than load a prefix and cut the rest off on rewrite
+            long records = (length - HEADER_SIZE) / RECORD_SIZE;
+            if (records > MAX_RECORDS) {
+                throw new IOException("too large at " + records + " scores, at most " + MAX_RECORDS + " are supported");
+            }
+            int n = (int) records;
+            String[] names = new String[n];
+            int[] scores = new int[n];
+            byte[] bytes = new byte[READ_BATCH * RECORD_SIZE];
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int valid = 0;
+            boolean damaged = false;
+            while (valid < n && !damaged) {
+                in.clear().limit(Math.min(n - valid, READ_BATCH) * RECORD_SIZE);
+                while (in.hasRemaining() && channel.read(in) >= 0) {
+                }
+                for (int at = 0; at < in.position(); at += RECORD_SIZE) {
+                    crc.reset();
+                    crc.update(bytes, at, CRC_OFFSET);
+                    int nameLength = bytes[at + 4] & 0xFF;
+                    if ((int) crc.getValue() != in.getInt(at + CRC_OFFSET) || nameLength > NAME_BYTES) {
+                        damaged = true;
+                        break;
+                    }
+                    scores[valid] = in.getInt(at);
+                    names[valid] = new String(bytes, at + 5, nameLength, StandardCharsets.UTF_8);
+                    valid++;
+                }
+                damaged |= in.hasRemaining();
+            }
+            store.addAll(names, scores, valid);
+            loaded = valid;
+            end = HEADER_SIZE + (long) valid * RECORD_SIZE;
+            rewrite = end != length;
+            if (rewrite) {
+                System.err.println("Leaderboard ends in a damaged record, keeping the first " + valid);
+            }
+        } catch (NoSuchFileException e) {
+            loadLegacy();
+            loaded = store.size();
+            end = HEADER_SIZE + (long) loaded * RECORD_SIZE;
+            rewrite = true;
+        } catch (IOException e) {
+            // Left as is, scores go to memory only rather than risk the file
+            System.err.println("Error reading leaderboard, not saving this session: " + e.getMessage());
+            loaded = -1;
+        }
+    }
+
+    // Scores the original text leaderboard kept, so they carry over into leaderboard.dat
+    private void loadLegacy() {
+        try {
+            for (String line : Files.readAllLines(LEGACY_FILE, StandardCharsets.UTF_8)) {
+                Leaderboard.ScoreEntry entry = Leaderboard.ScoreEntry.fromString(line);
+                if (entry != null) store.add(entry.name, entry.score);
+            }
+        } catch (NoSuchFileException e) {
+            System.out.println("No existing leaderboard found, starting fresh.");
+        } catch (IOException e) {
+            System.err.println("Error reading leaderboard: " + e.getMessage());
+        }
+    }
+
+    private void start() {
+        if (loaded < 0) return;
+        writer = new Thread(this, "LeaderboardWriter");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "LeaderboardClose"));
+    }
+
+    // Waits a little for queued scores to reach the disk, for shutdown
+    public void close() {
+        pending.add(CLOSE);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        FileChannel data = null;
+        try {
+            // Repairs or migrates the file now rather than on the first score; a failure is retried then
+            try {
+                data = open();
+            } catch (IOException e) {
+                System.err.println("Error saving leaderboard: " + e.getMessage());
+            }
+            while (true) {
+                Leaderboard.ScoreEntry entry = pending.take();
+                if (entry == CLOSE) break;
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        if (data == null) data = open();
+                        append(data, entry);
+                        break;
+                    } catch (IOException e) {
+                        // Reopened on the next try, which also cuts off whatever part of the record got out
+                        data = closeQuietly(data);
+                        if (attempt == WRITE_ATTEMPTS) {
+                            System.err.println("Error saving leaderboard, dropping " + entry + ": " + e.getMessage());
+                            break;
+                        }
+                        Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(data);
+        }
+    }
+
+    // Rewrites the file first if load() asked for it, then positions at the end of the last complete record
+    private FileChannel open() throws IOException {
+        if (rewrite) {
+            rewrite();
+            rewrite = false;
+        }
+        FileChannel data = FileChannel.open(DATA_FILE, StandardOpenOption.WRITE);
+        try {
+            if (data.size() > end) data.truncate(end);
+            data.position(end);
+        } catch (IOException e) {
+            closeQuietly(data);
+            throw e;
+        }
+        return data;
+    }
+
+    private void append(FileChannel data, Leaderboard.ScoreEntry entry) throws IOException {
+        GameEvents.LeaderboardSaveEvent event = GameEvents.beginSave();
+        writeFully(data, encode(entry.name, entry.score));
+        data.force(false);
+        end += RECORD_SIZE;
+        GameEvents.endSave(event, store.size());
+    }
+
+    private static FileChannel closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to save through it
+            }
+        }
+        return null;
+    }
+
+    // Writes the header and the loaded scores to a temporary file and renames it over the data file
+    private void rewrite() throws IOException {
+        try (FileChannel temp = FileChannel.open(TEMP_FILE, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0).flip();
+            writeFully(temp, header);
+            for (int i = 0; i < loaded; i++) {
+                writeFully(temp, encode(store.getName(i), store.getScore(i)));
+            }
+            temp.force(true);
+        }
+        Files.move(TEMP_FILE, DATA_FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Fills the shared record buffer; names longer than NAME_BYTES are cut at a character boundary
+    private ByteBuffer encode(String name, int score) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(utf8.length, NAME_BYTES);
+        while (length < utf8.length && length > 0 && (utf8[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        record.clear();
+        record.putInt(score).put((byte) length).put(utf8, 0, length);
+        while (record.position() < CRC_OFFSET) {
+            record.put((byte) 0);
+        }
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) crc.getValue()).flip();
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Shared leaderboard for kiosks on one machine, on loopback with a virtual thread per connection
+// Usage: java LeaderboardServer [port]
+//
+// Protocol, big-endian as DataOutputStream writes it, any number of requests per connection:
+//   SUBMIT: byte 1, int n, n x (UTF name, int score)  ->  int n, n x int rank
+//   TOP:    byte 2, int offset, int limit             ->  int total, int n, n x (UTF name, int score)
+//   Offsets past MAX_OFFSET close the connection, like batches past MAX_BATCH
+public class LeaderboardServer implements Runnable {
+    static final int DEFAULT_PORT = 7777;
+    static final byte SUBMIT = 1;
+    static final byte TOP = 2;
+    static final int MAX_BATCH = 1024;
+    static final int MAX_NAME_LENGTH = 64;
+    // Deepest page TOP serves; each shard copies offset + limit scores to merge it
+    static final int MAX_OFFSET = 100_000;
+    private static final int SHARDS = 16; // Power of two
+
+    // Scores are sharded by player name, so submissions lock only their player's shard
+    private final Shard[] shards = new Shard[SHARDS];
+    private final ScoreHistogram histogram = new ScoreHistogram();
+    private final AtomicLong arrivals = new AtomicLong();
+    private final LeaderboardLog log; // Null when scores are kept in memory only
+    private final ServerSocket socket;
+
+    // port 0 picks a free one; persistent servers load and append to this directory's leaderboard.dat
+    public LeaderboardServer(int port, boolean persistent) throws IOException {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+        log = persistent ? LeaderboardLog.get() : null;
+        if (log != null) {
+            ScoreStore loaded = log.getStore();
+            for (int i = 0; i < loaded.size(); i++) {
+                String name = loaded.getName(i);
+                add(name, loaded.getScore(i));
+            }
+        }
+        socket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LeaderboardServer server = new LeaderboardServer(port, true);
+        System.out.println("Leaderboard server on " + server.socket.getLocalSocketAddress()
+                + " with " + server.size() + " scores");
+        server.run();
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    // Accepts connections until close()
+    @Override
+    public void run() {
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                Thread.ofVirtual().name("LeaderboardConnection").start(() -> serve(connection));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("Error accepting leaderboard connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private Shard shardOf(String name) {
+        int h = name.hashCode();
+        return shards[(h ^ h >>> 16) & (SHARDS - 1)];
+    }
+
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) total += shard.store.size();
+        return total;
+    }
+
+    // Adds the score and returns its 1-based position among all shards; like ScoreStore.add() it ranks
+    // below equal scores posted earlier
+    private int add(String name, int score) {
+        shardOf(name).add(name, score, arrivals);
+        return (int) Math.min(histogram.add(score), Integer.MAX_VALUE);
+    }
+
+    private void serve(Socket connection) {
+        try (connection) {
+            connection.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return; // Client hung up between requests
+                }
+                if (op == SUBMIT) {
+                    submit(in, out);
+                } else if (op == TOP) {
+                    top(in, out);
+                } else {
+                    throw new IOException("Unknown request " + op);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("Leaderboard connection closed: " + e.getMessage());
+        }
+    }
+
+    private void submit(DataInputStream in, DataOutputStream out) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > MAX_BATCH) {
+            throw new IOException("Batch of " + n + " scores");
+        }
+        String[] names = new String[n];
+        int[] scores = new int[n];
+        for (int i = 0; i < n; i++) {
+            String name = in.readUTF();
+            names[i] = name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+            scores[i] = in.readInt();
+        }
+        out.writeInt(n);
+        for (int i = 0; i < n; i++) {
+            int rank = add(names[i], scores[i]);
+            if (log != null) {
+                log.persist(new Leaderboard.ScoreEntry(names[i], scores[i]));
+            }
+            out.writeInt(rank);
+        }
+    }
+
+    // Merges each shard's first offset + limit scores; equal scores go in the order they arrived
+    private void top(DataInputStream in, DataOutputStream out) throws IOException {
+        int offset = in.readInt();
+        int limit = Math.max(0, Math.min(in.readInt(), MAX_BATCH));
+        if (offset < 0 || offset > MAX_OFFSET) {
+            throw new IOException("Page offset " + offset);
+        }
+        Shard.Head[] heads = new Shard.Head[SHARDS];
+        int total = 0;
+        for (int s = 0; s < SHARDS; s++) {
+            heads[s] = shards[s].top(offset + limit);
+            total += heads[s].size;
+        }
+        int[] next = new int[SHARDS];
+        List<Leaderboard.ScoreEntry> page = new ArrayList<>(limit);
+        for (int k = 0; k < offset + limit; k++) {
+            int best = -1;
+            for (int s = 0; s < SHARDS; s++) {
+                if (next[s] < heads[s].scores.length && (best < 0 || heads[s].before(next[s], heads[best], next[best]))) {
+                    best = s;
+                }
+            }
+            if (best < 0) break;
+            int at = next[best]++;
+            if (k >= offset) page.add(new Leaderboard.ScoreEntry(heads[best].names[at], heads[best].scores[at]));
+        }
+        out.writeInt(total);
+        out.writeInt(page.size());
+        for (Leaderboard.ScoreEntry entry : page) {
+            out.writeUTF(entry.name);
+            out.writeInt(entry.score);
+        }
+    }
+
+    // A ScoreStore plus the server-wide arrival number of each score in it, both guarded by the store's lock
+    private static final class Shard {
+        final ScoreStore store = new ScoreStore();
+        private long[] arrival = new long[1024];
+
+        void add(String name, int score, AtomicLong arrivals) {
+            synchronized (store) {
+                int posted = store.size();
+                if (posted == arrival.length) arrival = Arrays.copyOf(arrival, posted * 2);
+                arrival[posted] = arrivals.getAndIncrement();
+                store.add(name, score);
+            }
+        }
+
+        // The best count scores, read together so they agree with the size
+        Head top(int count) {
+            synchronized (store) {
+                int[] posted = store.topPosted(0, count);
+                Head head = new Head(posted.length, store.size());
+                for (int k = 0; k < posted.length; k++) {
+                    head.names[k] = store.getName(posted[k]);
+                    head.scores[k] = store.getScore(posted[k]);
+                    head.arrivals[k] = arrival[posted[k]];
+                }
+                return head;
+            }
+        }
+
+        static final class Head {
+            final String[] names;
+            final int[] scores;
+            final long[] arrivals;
+            final int size; // Scores in the shard, not just the head
+
+            Head(int n, int size) {
+                names = new String[n];
+                scores = new int[n];
+                arrivals = new long[n];
+                this.size = size;
+            }
+
+            // Whether entry i ranks above entry j of other: higher score, or the same score posted earlier
+            boolean before(int i, Head other, int j) {
+                return scores[i] > other.scores[j] || (scores[i] == other.scores[j] && arrivals[i] < other.arrivals[j]);
+            }
+        }
+    }
+}
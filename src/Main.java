@@ -1,6 +1,8 @@
 import javax.swing.*;
 public class Main {
     public static void main(String[] args) {
+        StartupTiming.mark("main");
+        Assets.preload(); // Decodes while the window is being built
         JFrame window = new JFrame("Bejeweled");
         window.setResizable(false);
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -8,5 +10,6 @@ public class Main {
         window.pack();
         window.setLocationRelativeTo(null);
         window.setVisible(true);
+        StartupTiming.mark("window");
     }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+// The match groups on the board, filled by one scan per pass and consumed by Board's scoring and gravity
+// The scan adds every run of three or more as it finds it; runs that share a cell are joined with union-find,
+// so an L, T or cross is one group whichever order its runs turn up in. build() then lays out each group's
+// cells together with its orientation, shape and cascade depth. Arrays are sized for a whole board once and reused
+public class MatchGroups {
+    public static final int HORIZONTAL = 1;
+    public static final int VERTICAL = 2;
+    private static final int MIN_RUN = 3;
+
+    // How a group's runs meet: two runs cross at both their ends (L), at the end of one only (T) or at neither
+    public enum Shape { LINE, L, T, CROSS, COMPLEX }
+
+    private final int size;
+    private final int[] owner; // Per cell, (row - 1) * size + col - 1, the first run over it plus one, or 0
+    private final int[] lowestRow; // Per column, the bottom-most row in any group or 0
+
+    // Runs in the order they were added
+    private final int[] runRows;
+    private final int[] runCols;
+    private final int[] runLengths;
+    private final boolean[] runHorizontal;
+    private final int[] parent; // Union-find forest over runs, a root is the earliest run of its group
+    private final int[] runGroup;
+    private int runCount;
+
+    // Groups in the order of their earliest run, each with its runs and cells stored contiguously
+    private final int[] runStart;
+    private final int[] groupRuns;
+    private final int[] cellStart;
+    private final int[] cellRows;
+    private final int[] cellCols;
+    private final int[] orientations;
+    private final Shape[] shapes;
+    private final int[] fill; // Next free slot per group while laying out
+    private int groupCount;
+    private int depth;
+
+    public MatchGroups(int size) {
+        this.size = size;
+        int cells = size * size;
+        // Runs of one direction never overlap, so a cell is in at most two runs of three or more
+        int maxRuns = 2 * cells / MIN_RUN + 1;
+        owner = new int[cells];
+        lowestRow = new int[size + 2];
+        runRows = new int[maxRuns];
+        runCols = new int[maxRuns];
+        runLengths = new int[maxRuns];
+        runHorizontal = new boolean[maxRuns];
+        parent = new int[maxRuns];
+        runGroup = new int[maxRuns];
+        runStart = new int[maxRuns + 1];
+        groupRuns = new int[maxRuns];
+        cellStart = new int[maxRuns + 1];
+        cellRows = new int[cells];
+        cellCols = new int[cells];
+        orientations = new int[maxRuns];
+        shapes = new Shape[maxRuns];
+        fill = new int[maxRuns];
+    }
+
+    // Forgets the last pass, touching only the cells its runs covered
+    void clear() {
+        for (int r = 0; r < runCount; r++) {
+            int cell = start(r), step = step(r);
+            for (int k = 0; k < runLengths[r]; k++, cell += step) {
+                owner[cell] = 0;
+            }
+        }
+        runCount = 0;
+        groupCount = 0;
+    }
+
+    // A run of length gems from (row, col) going right or down; joins the group of any run it shares a cell with
+    void addRun(int row, int col, int length, boolean horizontal) {
+        int r = runCount++;
+        runRows[r] = row;
+        runCols[r] = col;
+        runLengths[r] = length;
+        runHorizontal[r] = horizontal;
+        parent[r] = r;
+        int cell = start(r), step = step(r);
+        for (int k = 0; k < length; k++, cell += step) {
+            if (owner[cell] == 0) {
+                owner[cell] = r + 1;
+            } else {
+                union(owner[cell] - 1, r);
+            }
+        }
+    }
+
+    // Lays out the groups of the runs added since clear(), found in cascade round depth (0 for a swap's own match)
+    void build(int depth) {
+        this.depth = depth;
+        groupCount = 0;
+        for (int r = 0; r < runCount; r++) {
+            int root = find(r);
+            runGroup[r] = root == r ? groupCount++ : runGroup[root]; // A root comes before the rest of its group
+        }
+        Arrays.fill(runStart, 0, groupCount + 1, 0);
+        Arrays.fill(cellStart, 0, groupCount + 1, 0);
+        Arrays.fill(orientations, 0, groupCount, 0);
+        for (int r = 0; r < runCount; r++) {
+            int g = runGroup[r];
+            runStart[g + 1]++;
+            cellStart[g + 1] += ownedCells(r);
+            orientations[g] |= runHorizontal[r] ? HORIZONTAL : VERTICAL;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            runStart[g + 1] += runStart[g];
+            cellStart[g + 1] += cellStart[g];
+        }
+
+        System.arraycopy(runStart, 0, fill, 0, groupCount);
+        for (int r = 0; r < runCount; r++) {
+            groupRuns[fill[runGroup[r]]++] = r;
+        }
+        // Each cell is laid out once, under the run that claimed it first
+        Arrays.fill(lowestRow, 0);
+        System.arraycopy(cellStart, 0, fill, 0, groupCount);
+        for (int r = 0; r < runCount; r++) {
+            int cell = start(r), step = step(r);
+            for (int k = 0; k < runLengths[r]; k++, cell += step) {
+                if (owner[cell] == r + 1) {
+                    int row = cell / size + 1, col = cell % size + 1, slot = fill[runGroup[r]]++;
+                    cellRows[slot] = row;
+                    cellCols[slot] = col;
+                    lowestRow[col] = Math.max(lowestRow[col], row);
+                }
+            }
+        }
+        for (int g = 0; g < groupCount; g++) {
+            shapes[g] = shape(g);
+        }
+    }
+
+    private Shape shape(int g) {
+        int runs = runStart[g + 1] - runStart[g];
+        if (runs == 1) return Shape.LINE;
+        if (runs > 2) return Shape.COMPLEX;
+        int a = groupRuns[runStart[g]], b = groupRuns[runStart[g] + 1];
+        int h = runHorizontal[a] ? a : b, v = h == a ? b : a;
+        // They meet at (row of h, column of v)
+        boolean endOfH = runCols[v] == runCols[h] || runCols[v] == runCols[h] + runLengths[h] - 1;
+        boolean endOfV = runRows[h] == runRows[v] || runRows[h] == runRows[v] + runLengths[v] - 1;
+        if (endOfH && endOfV) return Shape.L;
+        return endOfH || endOfV ? Shape.T : Shape.CROSS;
+    }
+
+    private int ownedCells(int r) {
+        int n = 0;
+        int cell = start(r), step = step(r);
+        for (int k = 0; k < runLengths[r]; k++, cell += step) {
+            if (owner[cell] == r + 1) n++;
+        }
+        return n;
+    }
+
+    // First cell of run r, the rest follow step(r) apart
+    private int start(int r) {
+        return (runRows[r] - 1) * size + runCols[r] - 1;
+    }
+
+    private int step(int r) {
+        return runHorizontal[r] ? 1 : size;
+    }
+
+    private int find(int r) {
+        while (parent[r] != r) {
+            parent[r] = parent[parent[r]];
+            r = parent[r];
+        }
+        return r;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else if (rb < ra) {
+            parent[ra] = rb;
+        }
+    }
+
+    public int getGroupCount() { return groupCount; }
+    public int getDepth() { return depth; } // Shared by every group of a pass
+    public int getLength(int g) { return cellStart[g + 1] - cellStart[g]; } // Distinct gems in the group
+    public int getOrientation(int g) { return orientations[g]; } // HORIZONTAL, VERTICAL or both
+    public Shape getShape(int g) { return shapes[g]; }
+    public int getRow(int g, int k) { return cellRows[cellStart[g] + k]; }
+    public int getCol(int g, int k) { return cellCols[cellStart[g] + k]; }
+
+    // The group's runs, indices for the run getters below
+    public int getRunCount(int g) { return runStart[g + 1] - runStart[g]; }
+    public int getRun(int g, int k) { return groupRuns[runStart[g] + k]; }
+    public int getRunRow(int run) { return runRows[run]; }
+    public int getRunCol(int run) { return runCols[run]; }
+    public int getRunLength(int run) { return runLengths[run]; }
+    public boolean isRunHorizontal(int run) { return runHorizontal[run]; }
+
+    // Bottom-most row of column col in any group, 0 if none; gravity leaves the rows below alone
+    public int getLowestRow(int col) { return lowestRow[col]; }
+}
@@ -0,0 +1,46 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Stress mode: plays random valid moves on one very large board, resolving each cascade headless,
+// and reports how long building the board and each move took
+// Usage: java MegaBoard [size] [gem types] [moves] [seed]
+public class MegaBoard {
+    private static final int DEFAULT_MOVES = 10;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : Board.MAX_SIZE;
+        int gemTypes = args.length > 1 ? Integer.parseInt(args[1]) : Board.DEFAULT_GEM_TYPES;
+        int moveCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MOVES;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        long start = System.nanoTime();
+        Board board = new Board(size, gemTypes, seed);
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Board %dx%d, %d gem types, %s, %d fork-join threads%n", size, size, gemTypes,
+                size * size >= BandedGrid.PARALLEL_CELLS ? "banded" : "single band",
+                ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("Built in %.1fms with %d valid moves%n", buildMillis, board.getMoveCount());
+
+        Random policy = new Random(~seed);
+        long[] nanos = new long[moveCount];
+        long score = 0;
+        int played = 0;
+        for (; played < moveCount; played++) {
+            int[] move = BatchSimulator.findMove(board, policy);
+            if (move == null) break;
+            long t0 = System.nanoTime();
+            score += board.playMove(move[0], move[1], move[2], move[3]);
+            nanos[played] = System.nanoTime() - t0;
+        }
+        if (played == 0) return;
+
+        long[] sorted = Arrays.copyOf(nanos, played);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long n : sorted) total += n;
+        System.out.printf("Moves: %d, score %d, board hash %016x%n", played, score, board.hash());
+        System.out.printf("Move time: mean %.2fms, p50 %.2fms, max %.2fms%n",
+                total / 1e6 / played, sorted[played / 2] / 1e6, sorted[played - 1] / 1e6);
+    }
+}
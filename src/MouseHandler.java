@@ -3,27 +3,20 @@ import java.awt.event.MouseListener;
 
 public class MouseHandler implements MouseListener {
 
-    private MouseEvent mouseEvent;
+    private final InputQueue commands;
 
-    public MouseEvent getMouseEvent() {
-        return mouseEvent;
-    }
-
-    public void setMouseEvent(MouseEvent mouseEvent) {
-        this.mouseEvent = mouseEvent;
-    }
-
-    public void consumeMouse() {
-        mouseEvent = null;
+    public MouseHandler(InputQueue commands) {
+        this.commands = commands;
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
     }
 
+    // Queued with its arrival time, the game thread handles it on its next tick
     @Override
     public void mousePressed(MouseEvent e) {
-        this.mouseEvent = e;
+        commands.offer(InputQueue.CLICK, e.getX(), e.getY(), e.getButton(), System.nanoTime());
     }
 
     public void mouseReleased(MouseEvent e) {
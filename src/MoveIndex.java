@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+// Index of every swap that would create a match, refreshed only around cells that changed
+// Moves are keyed by their top/left cell at bit (row-1)*8 + (col-1), like BitBoard
+public class MoveIndex {
+    private static final int SIZE = BitBoard.SIZE;
+    private static final long FIRST_COL = BitBoard.colMask(1);
+    private static final long SECOND_COL = BitBoard.colMask(2);
+    private static final long LAST_COL = BitBoard.colMask(SIZE);
+    private static final long NEXT_TO_LAST_COL = BitBoard.colMask(SIZE - 1);
+    private static final long LAST_ROW = BitBoard.rowMask(SIZE);
+
+    private final int[] kinds = new int[SIZE * SIZE];
+    private long horizontal; // swap of the cell with its right neighbour is valid
+    private long vertical;   // swap of the cell with the one below is valid
+    private long dirty = -1L;
+
+    public MoveIndex() {
+        Arrays.fill(kinds, -1);
+    }
+
+    // Records a cell's gem kind, the moves around it are rechecked on the next query
+    public void set(int row, int col, int kind) {
+        int cell = BitBoard.bit(row, col);
+        if (kinds[cell] != kind) {
+            kinds[cell] = kind;
+            dirty |= 1L << cell;
+        }
+    }
+
+    // Rechecks moves with an end within two cells, along a row or column, of a changed cell
+    private void refresh() {
+        if (dirty == 0) return;
+        long d = dirty;
+        long affected = d
+                | (d << 1) & ~FIRST_COL | (d << 2) & ~(FIRST_COL | SECOND_COL)
+                | (d >>> 1) & ~LAST_COL | (d >>> 2) & ~(LAST_COL | NEXT_TO_LAST_COL)
+                | d << SIZE | d << (2 * SIZE) | d >>> SIZE | d >>> (2 * SIZE);
+        long rightMoves = (affected | affected >>> 1) & ~LAST_COL;
+        long downMoves = (affected | affected >>> SIZE) & ~LAST_ROW;
+
+        for (long m = rightMoves; m != 0; m &= m - 1) {
+            int cell = Long.numberOfTrailingZeros(m);
+            horizontal = check(cell, cell + 1) ? horizontal | 1L << cell : horizontal & ~(1L << cell);
+        }
+        for (long m = downMoves; m != 0; m &= m - 1) {
+            int cell = Long.numberOfTrailingZeros(m);
+            vertical = check(cell, cell + SIZE) ? vertical | 1L << cell : vertical & ~(1L << cell);
+        }
+        dirty = 0;
+    }
+
+    // Whether swapping two adjacent cells puts either gem into a run of three
+    private boolean check(int a, int b) {
+        int ka = kinds[a], kb = kinds[b];
+        if (ka == kb || ka < 0 || kb < 0) return false;
+        return formsRun(b, ka, a) || formsRun(a, kb, b);
+    }
+
+    // Whether a gem of this kind moved into the cell lines up with two more, not counting the cell it left
+    private boolean formsRun(int cell, int kind, int from) {
+        int row = cell / SIZE, col = cell % SIZE;
+        int h = 1;
+        for (int c = col - 1, i = cell - 1; c >= 0 && i != from && kinds[i] == kind; c--, i--) h++;
+        for (int c = col + 1, i = cell + 1; c < SIZE && i != from && kinds[i] == kind; c++, i++) h++;
+        if (h >= 3) return true;
+        int v = 1;
+        for (int r = row - 1, i = cell - SIZE; r >= 0 && i != from && kinds[i] == kind; r--, i -= SIZE) v++;
+        for (int r = row + 1, i = cell + SIZE; r < SIZE && i != from && kinds[i] == kind; r++, i += SIZE) v++;
+        return v >= 3;
+    }
+
+    public int count() {
+        refresh();
+        return Long.bitCount(horizontal) + Long.bitCount(vertical);
+    }
+
+    // Whether the swap of two adjacent playable cells is in the index
+    public boolean isValid(int r1, int c1, int r2, int c2) {
+        refresh();
+        int cell = BitBoard.bit(Math.min(r1, r2), Math.min(c1, c2));
+        long moves = r1 == r2 ? horizontal : vertical;
+        return (moves >>> cell & 1L) != 0;
+    }
+
+    // The n-th valid move as {r1, c1, r2, c2}, horizontal moves first, written into out
+    public int[] get(int n, int[] out) {
+        refresh();
+        long moves = horizontal;
+        boolean right = true;
+        if (n >= Long.bitCount(horizontal)) {
+            n -= Long.bitCount(horizontal);
+            moves = vertical;
+            right = false;
+        }
+        for (int i = 0; i < n; i++) {
+            moves &= moves - 1;
+        }
+        if (moves == 0) {
+            throw new IllegalArgumentException("No valid move at index " + n);
+        }
+        int cell = Long.numberOfTrailingZeros(moves);
+        out[0] = cell / SIZE + 1;
+        out[1] = cell % SIZE + 1;
+        out[2] = right ? out[0] : out[0] + 1;
+        out[3] = right ? out[1] + 1 : out[1];
+        return out;
+    }
+}
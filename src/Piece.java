@@ -1,13 +1,25 @@
 public class Piece {
     int x; // Pixel x-coordinate for rendering
     int y; // Pixel y-coordinate for rendering
+    int prevX, prevY; // Pixel coordinates before the last animation step, for interpolation
     private int row; // Grid row index
     private int col; // Grid column index
-    private int kind; // Gem type (0 to GEM_TYPES-1)
-    int match; // Number of matches this gem is part of
+    private int kind; // Gem type (0 to the board's gem types - 1)
+    private final int gemTypes; // The owning board's, bounding kind
+    int match; // Gems in the match group this gem is part of, 0 if none
+    // Tween towards (toX, toY), stepped by Animator while animating is set
+    boolean animating;
+    int fromX, fromY, toX, toY;
+    long elapsed, duration; // Nanoseconds
+    Animator.Easing easing;
+    // Last on-screen state seen by Board.collectDamage()
+    int drawnX, drawnY;
+    int drawnKind = -2;
+    boolean drawnHighlight;
 
-    // Constructor initializes match to 0 and kind to -1 (invalid)
-    public Piece() {
+    // Constructor initializes match to 0 and kind to -1 (invalid), for a board with gemTypes kinds of gem
+    public Piece(int gemTypes) {
+        this.gemTypes = gemTypes;
         this.match = 0;
         this.kind = -1; // Initialize to invalid kind
     }
@@ -56,7 +68,7 @@ public class Piece {
     }
 
     public void setKind(int kind) {
-        if (kind < -1 || kind >= 7) { // Allow -1 for invalid/border pieces
+        if (kind < -1 || kind >= gemTypes) { // Allow -1 for invalid/border pieces
             throw new IllegalArgumentException("Invalid gem type: " + kind);
         }
         this.kind = kind;
@@ -0,0 +1,148 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// A game as its board seed plus the tick each accepted swap was made on, with the expected outcome
+// File layout: magic, version, seed, swap count, per swap a varint tick delta and one packed byte,
+// then the final tick, score and board hash. A typical game is a few hundred bytes
+public class Replay {
+    private static final int MAGIC = 0x424A5250; // "BJRP"
+    private static final int VERSION = 2; // 2: each run of an L or T match scores once, 1 outcomes no longer replay
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final long seed;
+    private long[] ticks = new long[INITIAL_CAPACITY];
+    private byte[] swaps = new byte[INITIAL_CAPACITY];
+    private int count;
+    private long finalTick;
+    private int finalScore;
+    private long finalHash;
+
+    public Replay(long seed) {
+        this.seed = seed;
+    }
+
+    // Swaps are between neighbours, so a cell and a direction fit in one byte:
+    // bit 6 set for a vertical swap, then the 0-based row and column of the upper or left cell
+    public void addSwap(long tick, int r1, int c1, int r2, int c2) {
+        int row = Math.min(r1, r2) - 1, col = Math.min(c1, c2) - 1;
+        int vertical = r1 != r2 ? 1 : 0;
+        addSwapByte(tick, (byte) (vertical << 6 | row << 3 | col));
+    }
+
+    // Stores the outcome play() is checked against
+    public void finish(long tick, int score, long hash) {
+        finalTick = tick;
+        finalScore = score;
+        finalHash = hash;
+    }
+
+    public long getSeed() { return seed; }
+    public int getSwapCount() { return count; }
+    public long getFinalTick() { return finalTick; }
+    public int getFinalScore() { return finalScore; }
+    public long getFinalHash() { return finalHash; }
+
+    // Re-runs the game headless to the end, as fast as the CPU allows
+    public Simulation play() {
+        Simulation sim = new Simulation(seed);
+        Board board = sim.getBoard();
+        int next = 0;
+        while (!sim.isGameOver()) {
+            while (next < count && ticks[next] == board.getTicks()) {
+                int swap = swaps[next++];
+                int row = (swap >> 3 & 7) + 1, col = (swap & 7) + 1;
+                boolean vertical = (swap & 0x40) != 0;
+                board.trySwap(row, col, vertical ? row + 1 : row, vertical ? col : col + 1);
+            }
+            sim.tick();
+        }
+        return sim;
+    }
+
+    // Whether sim ended where the recording did
+    public boolean matches(Simulation sim) {
+        return sim.getTicks() == finalTick && sim.getScore() == finalScore && sim.getBoard().hash() == finalHash;
+    }
+
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            writeVarLong(out, count);
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarLong(out, ticks[i] - previous);
+                out.writeByte(swaps[i]);
+                previous = ticks[i];
+            }
+            writeVarLong(out, finalTick);
+            out.writeInt(finalScore);
+            out.writeLong(finalHash);
+            out.flush();
+        }
+    }
+
+    public static Replay read(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(file));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replay file: " + path);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported replay version " + version + ": " + path);
+            }
+            Replay replay = new Replay(in.readLong());
+            long swapCount = readVarLong(in);
+            long tick = 0;
+            for (long i = 0; i < swapCount; i++) {
+                tick += readVarLong(in);
+                int swap = in.readUnsignedByte();
+                replay.addSwapByte(tick, (byte) swap);
+            }
+            long finalTick = readVarLong(in);
+            int finalScore = in.readInt();
+            replay.finish(finalTick, finalScore, in.readLong());
+            return replay;
+        }
+    }
+
+    private void addSwapByte(long tick, byte swap) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            swaps = Arrays.copyOf(swaps, count * 2);
+        }
+        ticks[count] = tick;
+        swaps[count] = swap;
+        count++;
+    }
+
+    // Unsigned LEB128: seven bits per byte, high bit set while more follow
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in replay");
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Replays recorded games headless at full speed and checks they end on the recorded score and board
+// Usage: java ReplayPlayer <file.bjr> [runs]
+//        java ReplayPlayer --record <seed> <file.bjr>   (records a BatchSimulator game)
+// Exits with status 1 if any run diverges from the recording
+public class ReplayPlayer {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--record")) {
+            record(Long.parseLong(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length == 0) {
+            System.err.println("Usage: java ReplayPlayer <file.bjr> [runs] | --record <seed> <file.bjr>");
+            System.exit(2);
+        }
+        Replay replay = Replay.read(Path.of(args[0]));
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        System.out.printf("Seed %d, %d swaps, expecting score %d after %d ticks%n", replay.getSeed(),
+                replay.getSwapCount(), replay.getFinalScore(), replay.getFinalTick());
+
+        long ticks = 0;
+        long start = System.nanoTime();
+        for (int run = 0; run < runs; run++) {
+            Simulation sim = replay.play();
+            ticks += sim.getTicks();
+            if (!replay.matches(sim)) {
+                System.out.printf("Run %d diverged: score %d after %d ticks, board hash %016x, expected %016x%n",
+                        run, sim.getScore(), sim.getTicks(), sim.getBoard().hash(), replay.getFinalHash());
+                System.exit(1);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d runs matched in %.2fs: %.0f ticks/s%n", runs, seconds, ticks / seconds);
+    }
+
+    private static void record(long seed, Path path) throws IOException {
+        Simulation sim = new Simulation(seed);
+        Replay replay = new Replay(seed);
+        sim.getBoard().setReplay(replay);
+        BatchSimulator.play(sim, new Random(~seed));
+        replay.finish(sim.getTicks(), sim.getScore(), sim.getBoard().hash());
+        replay.write(path);
+        System.out.printf("Recorded %d swaps, score %d after %d ticks to %s%n",
+                replay.getSwapCount(), sim.getScore(), sim.getTicks(), path);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Counts of every score posted, so ranks need no lock: Fenwick trees of atomic counts over the high then low 16 bits
+public class ScoreHistogram {
+    private static final int BITS = 16;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SIZE + 1);
+    // Created on the first score in the bucket; game scores fall in only a few
+    private final AtomicReferenceArray<AtomicLongArray> scores = new AtomicReferenceArray<>(SIZE);
+
+    // Counts the score and returns the 1-based position it takes, below equal scores counted before it
+    public long add(int score) {
+        int key = keyOf(score);
+        increment(buckets, key >>> BITS);
+        AtomicLongArray tree = bucket(key >>> BITS);
+        increment(tree, key & MASK);
+        return prefix(buckets, key >>> BITS) + prefix(tree, (key & MASK) + 1);
+    }
+
+    // 1-based rank a new score would get: one more than the number of strictly better scores
+    public long rank(int score) {
+        int key = keyOf(score);
+        long better = prefix(buckets, key >>> BITS);
+        AtomicLongArray tree = scores.get(key >>> BITS);
+        if (tree != null) better += prefix(tree, key & MASK);
+        return better + 1;
+    }
+
+    // Orders keys best first: the highest score gets key 0
+    private static int keyOf(int score) {
+        return ~(score ^ Integer.MIN_VALUE);
+    }
+
+    private AtomicLongArray bucket(int index) {
+        AtomicLongArray tree = scores.get(index);
+        if (tree == null) {
+            tree = new AtomicLongArray(SIZE + 1);
+            if (!scores.compareAndSet(index, null, tree)) tree = scores.get(index);
+        }
+        return tree;
+    }
+
+    // Trees are 1-based, cell 0 unused
+    private static void increment(AtomicLongArray tree, int index) {
+        for (int i = index + 1; i <= SIZE; i += i & -i) tree.getAndIncrement(i);
+    }
+
+    // Total count of the indexes below index
+    private static long prefix(AtomicLongArray tree, int index) {
+        long sum = 0;
+        for (int i = index; i > 0; i -= i & -i) sum += tree.get(i);
+        return sum;
+    }
+}
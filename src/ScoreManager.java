@@ -1,11 +1,15 @@
 import java.awt.Graphics2D;
 import java.awt.Color;
+import java.awt.Font;
 
 public class ScoreManager {
     private static final int SCORE_X = 645;
     private static final int SCORE_Y = 350;
+    private static final Font SCORE_FONT = new Font("Consolas", Font.BOLD, 15);
 
     private int score;
+    private int drawnScore = -1;
+    private HudLabel scoreLabel; // Created on first draw
 
     public ScoreManager() {
         this.score = 0;
@@ -16,10 +20,22 @@ public class ScoreManager {
     }
 
 
+    // Marks the score text when the score changed since it was last drawn
+    public void collectDamage(DamageTracker damage) {
+        if (score != drawnScore) {
+            damage.add(SCORE_X, SCORE_Y - 15, 200, 20);
+            drawnScore = score;
+        }
+    }
+
     public void draw(Graphics2D g2, boolean isGameOver) {
-        g2.setColor(Color.YELLOW);
-        g2.setFont(new java.awt.Font("Consolas", java.awt.Font.BOLD, 15));
-        g2.drawString("Score: " + score, SCORE_X, SCORE_Y);
+        if (scoreLabel == null) {
+            scoreLabel = new HudLabel(SCORE_FONT, Color.YELLOW, SCORE_X, SCORE_Y, 200);
+        }
+        if (scoreLabel.isStale(score)) {
+            scoreLabel.render(score, "Score: " + score);
+        }
+        scoreLabel.draw(g2);
     }
 
     public int getScore() {
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Every score ever posted, ranked: an array-backed treap ordered by score, best first, then by arrival
+// Node i is the i-th score posted and never changes; subtree sizes make insert, rank and select O(log n)
+// Safe to share between threads, every method locks the store
+public class ScoreStore {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] scores = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];
+    private int[] priority = new int[INITIAL_CAPACITY];
+    private int count;
+    private int root = NONE;
+    // Player name to the node of their best score; its keys also share one String per player
+    private final Map<String, Integer> bests = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+
+    public synchronized int size() {
+        return count;
+    }
+
+    // Adds a score, returning its 1-based position; it ranks below equal scores posted earlier
+    public synchronized int add(String name, int score) {
+        int node = append(name, score);
+        root = insert(root, node);
+        return positionOf(node);
+    }
+
+    // Builds the tree from scores in posting order in O(n log n) sorting plus O(n) linking,
+    // much faster than inserting one by one when a large file is loaded
+    public synchronized void addAll(String[] postedNames, int[] postedScores, int n) {
+        if (count != 0) {
+            for (int i = 0; i < n; i++) add(postedNames[i], postedScores[i]);
+            return;
+        }
+        // Best first, then by arrival: larger score and smaller index give a smaller key
+        long[] order = new long[n];
+        for (int i = 0; i < n; i++) {
+            append(postedNames[i], postedScores[i]);
+            order[i] = (long) ~postedScores[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) sorted[i] = (int) order[i];
+        root = build(sorted, 0, n);
+
+        // Hands out the same random priorities an insert would, highest first in breadth-first order,
+        // so every parent outranks its children and the treap stays valid for later inserts
+        int[] drawn = new int[n];
+        for (int i = 0; i < n; i++) drawn[i] = random.nextInt() & Integer.MAX_VALUE;
+        Arrays.sort(drawn);
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        if (root != NONE) queue[tail++] = root;
+        while (head < tail) {
+            int node = queue[head++];
+            priority[node] = drawn[n - head];
+            if (left[node] != NONE) queue[tail++] = left[node];
+            if (right[node] != NONE) queue[tail++] = right[node];
+        }
+    }
+
+    private int build(int[] sorted, int from, int to) {
+        if (from >= to) return NONE;
+        int mid = (from + to) >>> 1;
+        int node = sorted[mid];
+        left[node] = build(sorted, from, mid);
+        right[node] = build(sorted, mid + 1, to);
+        size[node] = to - from;
+        return node;
+    }
+
+    // Stores the node's fields and updates the player's best, without linking it into the tree
+    private int append(String name, int score) {
+        if (count == scores.length) {
+            int capacity = count * 2;
+            scores = Arrays.copyOf(scores, capacity);
+            names = Arrays.copyOf(names, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            size = Arrays.copyOf(size, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+        }
+        int node = count++;
+        Integer best = bests.get(name);
+        if (best == null) {
+            bests.put(name, node);
+        } else {
+            name = names[best]; // Share the first String seen for this player
+            if (score > scores[best]) bests.put(name, node);
+        }
+        scores[node] = score;
+        names[node] = name;
+        left[node] = NONE;
+        right[node] = NONE;
+        size[node] = 1;
+        priority[node] = random.nextInt() & Integer.MAX_VALUE;
+        return node;
+    }
+
+    // Whether node a ranks above node b: higher score, or the same score posted earlier
+    private boolean before(int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private int insert(int at, int node) {
+        if (at == NONE) return node;
+        size[at]++;
+        if (before(node, at)) {
+            left[at] = insert(left[at], node);
+            if (priority[left[at]] > priority[at]) at = rotateRight(at);
+        } else {
+            right[at] = insert(right[at], node);
+            if (priority[right[at]] > priority[at]) at = rotateLeft(at);
+        }
+        return at;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        size[pivot] = size[node];
+        size[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        size[pivot] = size[node];
+        size[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return pivot;
+    }
+
+    private int sizeOf(int node) {
+        return node == NONE ? 0 : size[node];
+    }
+
+    // 1-based rank a new score would get: one more than the number of strictly better scores
+    public synchronized int rank(int score) {
+        int better = 0;
+        int node = root;
+        while (node != NONE) {
+            if (scores[node] > score) {
+                better += sizeOf(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return better + 1;
+    }
+
+    // 1-based position of a node in the ranking
+    private int positionOf(int target) {
+        int position = 0;
+        int node = root;
+        while (node != target) {
+            if (before(target, node)) {
+                node = left[node];
+            } else {
+                position += sizeOf(left[node]) + 1;
+                node = right[node];
+            }
+        }
+        return position + sizeOf(left[target]) + 1;
+    }
+
+    // Up to limit entries starting at the 0-based position offset, best first
+    public synchronized List<Leaderboard.ScoreEntry> top(int offset, int limit) {
+        List<Leaderboard.ScoreEntry> page = new ArrayList<>(Math.max(0, Math.min(limit, count - offset)));
+        for (int k = offset; k < count && k < offset + limit; k++) {
+            int node = select(k);
+            page.add(new Leaderboard.ScoreEntry(names[node], scores[node]));
+        }
+        return page;
+    }
+
+    // Posting indexes of up to limit scores starting at the 0-based position offset, best first
+    public synchronized int[] topPosted(int offset, int limit) {
+        int[] posted = new int[Math.max(0, Math.min(limit, count - offset))];
+        for (int k = 0; k < posted.length; k++) posted[k] = select(offset + k);
+        return posted;
+    }
+
+    private int select(int k) {
+        int node = root;
+        while (true) {
+            int leftSize = sizeOf(left[node]);
+            if (k < leftSize) {
+                node = left[node];
+            } else if (k == leftSize) {
+                return node;
+            } else {
+                k -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    // The player's best score, or null if they never posted one
+    public synchronized Leaderboard.ScoreEntry best(String name) {
+        Integer node = bests.get(name);
+        return node == null ? null : new Leaderboard.ScoreEntry(names[node], scores[node]);
+    }
+
+    public synchronized int getScore(int posted) {
+        return scores[posted];
+    }
+
+    public synchronized String getName(int posted) {
+        return names[posted];
+    }
+}
@@ -0,0 +1,34 @@
+// UI-free game session: a seeded board with its timer and score, advanced one fixed tick at a time
+public class Simulation {
+    // Same fixed step Game.update() feeds to the timer
+    public static final double TICK_SECONDS = 0.016;
+
+    private final Board board;
+    private final GameTimer timer;
+    private final ScoreManager scoreManager;
+    private long ticks;
+
+    public Simulation(long seed) {
+        this.board = new Board(seed);
+        this.timer = new GameTimer();
+        this.scoreManager = new ScoreManager();
+    }
+
+    // Advances the board and timer by one tick, returns the points scored
+    public int tick() {
+        if (timer.isGameOver()) return 0;
+        int matches = board.update();
+        timer.update(TICK_SECONDS, matches);
+        if (matches > 0) {
+            scoreManager.addScore(matches);
+        }
+        ticks++;
+        return matches;
+    }
+
+    public Board getBoard() { return board; }
+    public GameTimer getTimer() { return timer; }
+    public int getScore() { return scoreManager.getScore(); }
+    public long getTicks() { return ticks; }
+    public boolean isGameOver() { return timer.isGameOver(); }
+}
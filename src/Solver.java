@@ -0,0 +1,172 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+// Best-move search: parallel expectimax over legal swaps, sampling refills as chance nodes, with a shared cache
+public class Solver {
+    public static final int DEFAULT_DEPTH = 2;
+    public static final int DEFAULT_SAMPLES = 3;
+    private static final int CACHE_BITS = 18;
+    private static final long ZOBRIST_SEED = 0x5DEECE66DL;
+    private static final long SAMPLE_STEP = 0x9E3779B97F4A7C15L;
+
+    // What-if boards, snapshots of the positions they branch from and move buffers for one thread, one per level
+    private final class Scratch {
+        final Board[] boards = new Board[depth];
+        final BoardSnapshot[] snapshots = new BoardSnapshot[depth];
+        final int[][] moves = new int[depth][4];
+
+        Board board(int level) {
+            if (boards[level] == null) {
+                boards[level] = new Board(size, gemTypes, 0);
+            }
+            return boards[level];
+        }
+
+        BoardSnapshot snapshot(int level) {
+            if (snapshots[level] == null) {
+                snapshots[level] = new BoardSnapshot(size, gemTypes);
+            }
+            return snapshots[level];
+        }
+    }
+
+    private final int size;
+    private final int gemTypes;
+    private final int depth;
+    private final int samples;
+    private final ForkJoinPool pool;
+    private final TranspositionCache cache = new TranspositionCache(CACHE_BITS);
+    private final long[] zobrist; // One key per cell and gem kind
+    private final long[] depthKeys; // Mixed into cache keys, a position's value differs per depth left
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private final LongAdder positions = new LongAdder();
+
+    // Searches the default 8x8 board on the common pool
+    public Solver(int depth, int samples) {
+        this(Board.DEFAULT_SIZE, Board.DEFAULT_GEM_TYPES, depth, samples, ForkJoinPool.commonPool());
+    }
+
+    public Solver(int size, int gemTypes, int depth, int samples, ForkJoinPool pool) {
+        if (depth < 1 || samples < 1) {
+            throw new IllegalArgumentException("Depth and samples must be at least 1: " + depth + ", " + samples);
+        }
+        this.size = size;
+        this.gemTypes = gemTypes;
+        this.depth = depth;
+        this.samples = samples;
+        this.pool = pool;
+        SplittableRandom keys = new SplittableRandom(ZOBRIST_SEED);
+        zobrist = new long[size * size * gemTypes];
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = keys.nextLong();
+        }
+        depthKeys = new long[depth + 1];
+        for (int d = 0; d <= depth; d++) {
+            depthKeys[d] = keys.nextLong();
+        }
+    }
+
+    // The swap with the highest expected score as {r1, c1, r2, c2}, or null on a dead board; blocks until found
+    public int[] bestMove(Board board) {
+        BoardSnapshot root = snapshot(board);
+        return pool.invoke(ForkJoinTask.adapt(() -> search(root)));
+    }
+
+    // Same search on the pool, for callers that cannot wait; the board is snapshotted now and may change meanwhile
+    public Future<int[]> bestMoveAsync(Board board) {
+        BoardSnapshot root = snapshot(board);
+        return pool.submit(() -> search(root));
+    }
+
+    private BoardSnapshot snapshot(Board board) {
+        if (board.getSize() != size || board.getGemTypes() != gemTypes) {
+            throw new IllegalArgumentException("Solver is set up for " + size + "x" + size + " boards with "
+                    + gemTypes + " gem types");
+        }
+        BoardSnapshot root = new BoardSnapshot(size, gemTypes);
+        board.snapshot(root);
+        return root;
+    }
+
+    // Runs on a pool thread, so the parallel stream spreads the root moves over the same pool
+    private int[] search(BoardSnapshot root) {
+        Board pos = scratch.get().board(0);
+        pos.loadPosition(root, 0);
+        int count = pos.getMoveCount();
+        if (count == 0) return null;
+        int[][] moves = new int[count][];
+        for (int m = 0; m < count; m++) {
+            moves[m] = pos.getMove(m);
+        }
+        long hash = hash(pos);
+        double[] values = IntStream.range(0, count).parallel()
+                .mapToDouble(m -> expected(root, hash, m, moves[m], depth, 0))
+                .toArray();
+        int best = 0;
+        for (int m = 1; m < count; m++) {
+            if (values[m] > values[best]) best = m;
+        }
+        return moves[best];
+    }
+
+    // Expected score of playing move, the m-th on pos, plus the value of where it leads with depth - 1 moves left
+    private double expected(BoardSnapshot pos, long hash, int m, int[] move, int depth, int level) {
+        Board child = scratch.get().board(level);
+        double sum = 0;
+        for (int k = 0; k < samples; k++) {
+            // Seeds follow from the position, so a position reached twice is valued the same and caches cleanly
+            child.loadPosition(pos, hash + (long) (m * samples + k + 1) * SAMPLE_STEP);
+            sum += child.playMove(move[0], move[1], move[2], move[3]);
+            positions.increment();
+            if (depth > 1) {
+                sum += value(child, depth - 1, level + 1);
+            }
+        }
+        return sum / samples;
+    }
+
+    // Best expected score over the next depth moves from a settled position
+    private double value(Board pos, int depth, int level) {
+        int count = pos.getMoveCount();
+        if (count == 0) return 0;
+        long hash = hash(pos);
+        long key = hash ^ depthKeys[depth];
+        double cached = cache.get(key);
+        if (!Double.isNaN(cached)) return cached;
+        Scratch own = scratch.get();
+        BoardSnapshot snapshot = own.snapshot(level);
+        pos.snapshot(snapshot);
+        int[] move = own.moves[level];
+        double best = 0;
+        for (int m = 0; m < count; m++) {
+            pos.getMove(m, move);
+            best = Math.max(best, expected(snapshot, hash, m, move, depth, level));
+        }
+        cache.put(key, best);
+        return best;
+    }
+
+    // Zobrist hash of the gem layout
+    long hash(Board board) {
+        long h = 0;
+        for (int i = 1; i <= size; i++) {
+            for (int j = 1; j <= size; j++) {
+                h ^= zobrist[((i - 1) * size + (j - 1)) * gemTypes + board.getKind(i, j)];
+            }
+        }
+        return h;
+    }
+
+    // Positions played out so far, over every search
+    public long getPositions() {
+        return positions.sum();
+    }
+
+    public TranspositionCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.Random;
+
+// Plays the same seeded games twice, once taking the solver's best move and once a random one, and reports
+// search throughput, cache hit rate, time per move and the mean score of both policies
+// Usage: java SolverBenchmark [depth] [samples] [games] [seed]
+public class SolverBenchmark {
+    private static final int DEFAULT_GAMES = 5;
+    private static final long MAX_TICKS = 60L * 60 * 60; // One hour of game time per game, like BatchSimulator
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : Solver.DEFAULT_DEPTH;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : Solver.DEFAULT_SAMPLES;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        Solver solver = new Solver(depth, samples);
+        long solverScore = 0;
+        long randomScore = 0;
+        long moves = 0;
+        long searchNanos = 0;
+        for (int g = 0; g < games; g++) {
+            Simulation sim = new Simulation(seed + g);
+            Board board = sim.getBoard();
+            while (!sim.isGameOver() && sim.getTicks() < MAX_TICKS) {
+                if (board.isIdle()) {
+                    long t0 = System.nanoTime();
+                    int[] move = solver.bestMove(board);
+                    searchNanos += System.nanoTime() - t0;
+                    if (move != null) {
+                        board.trySwap(move[0], move[1], move[2], move[3]);
+                        moves++;
+                    }
+                }
+                sim.tick();
+            }
+            solverScore += sim.getScore();
+            randomScore += BatchSimulator.play(seed + g).getScore();
+        }
+
+        double seconds = searchNanos / 1e9;
+        TranspositionCache cache = solver.getCache();
+        System.out.printf("Solver depth %d, %d samples per refill, %d games, %d moves%n", depth, samples, games, moves);
+        System.out.printf("Search: %.0f positions/s, %.2fms per move, cache hit rate %.1f%%%n",
+                solver.getPositions() / seconds, moves == 0 ? 0 : searchNanos / 1e6 / moves,
+                cache.getProbes() == 0 ? 0 : 100.0 * cache.getHits() / cache.getProbes());
+        System.out.printf("Mean score: solver %.1f, random %.1f%n",
+                (double) solverScore / games, (double) randomScore / games);
+    }
+}
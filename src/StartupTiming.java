@@ -0,0 +1,21 @@
+// Milestones from Main.main to the first frame on screen, printed once that frame is presented
+// The clock starts when the class is first used, which Main.main does before anything else
+public final class StartupTiming {
+    private static final long START = System.nanoTime();
+    private static final StringBuilder milestones = new StringBuilder();
+    private static boolean reported;
+
+    private StartupTiming() {
+    }
+
+    public static synchronized void mark(String milestone) {
+        milestones.append(String.format(" %s %.1fms", milestone, (System.nanoTime() - START) / 1e6));
+    }
+
+    public static synchronized void firstFrame() {
+        if (reported) return;
+        reported = true;
+        mark("first frame");
+        System.out.println("Startup:" + milestones);
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size, lock-free cache of search results keyed by 64-bit position hashes, shared by every solver thread
+// Each bucket holds two entries, the newest first; a store pushes the older one out, so memory never grows.
+// Entries are written without locks as (key ^ value, value): a reader racing a writer sees a key that no
+// longer matches and treats it as a miss, so a torn entry is never returned
+public class TranspositionCache {
+    private final long[] keys;
+    private final long[] values;
+    private final int mask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    // 2^bits buckets of two entries
+    public TranspositionCache(int bits) {
+        keys = new long[2 << bits];
+        values = new long[2 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    // The value stored for key, or NaN
+    public double get(long key) {
+        probes.increment();
+        int slot = slot(key);
+        for (int i = slot; i < slot + 2; i++) {
+            long value = values[i];
+            if ((keys[i] ^ value) == key) {
+                hits.increment();
+                return Double.longBitsToDouble(value);
+            }
+        }
+        return Double.NaN;
+    }
+
+    public void put(long key, double result) {
+        int slot = slot(key);
+        long value = Double.doubleToRawLongBits(result);
+        if ((keys[slot] ^ values[slot]) != key) {
+            // Demote the newest entry, evicting the one behind it
+            keys[slot + 1] = keys[slot];
+            values[slot + 1] = values[slot];
+        }
+        keys[slot] = key ^ value;
+        values[slot] = value;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ key >>> 32) & mask << 1;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+}